@@ -16,15 +16,16 @@ import android.media.AudioRecord;
 import android.media.AudioTrack;
 import android.media.MediaRecorder;
 import android.os.Bundle;
+import android.os.Process;
 import android.preference.PreferenceManager;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.widget.ScrollView;
 import android.widget.TextView;
 
-import java.util.ArrayDeque;
-import java.util.Arrays;
-import java.util.Deque;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -35,7 +36,9 @@ public class MainActivity extends AppCompatActivity implements SharedPreferences
     private static final int CHANNEL_OUT_CONFIG = AudioFormat.CHANNEL_OUT_MONO;
     private static final int AUDIO_IN_FORMAT = AudioFormat.ENCODING_PCM_16BIT;
     private static final int AUDIO_OUT_FORMAT = AudioFormat.ENCODING_PCM_16BIT;
-    private static final float SHORT_MAX = 32768;
+    private static final float SENDER_GAIN = 0.8f;
+    private static final int RECEIVER_QUEUE_CAPACITY = 16;
+    private static final long PROCESSOR_POLL_TIMEOUT_NANOS = 100000000;
     private static final String START_CONTENT_TEXT = "contentText";
     private static final String[] LOG_LEVEL_STRINGS = new String[] {
             "error", "warn", "info", "debug"
@@ -66,14 +69,17 @@ public class MainActivity extends AppCompatActivity implements SharedPreferences
     private float endIndexStdLimit;
     private int bufferLength;
     private int fftLength;
+    private float searchFraction;
+    private boolean trackingEnabled;
+    private int acquisitionDecimation;
+    private boolean basebandEnabled;
+    private boolean energyGateEnabled;
 
     // Sender Parameter
     private boolean useSecondSender;
 
     // Computed Parameter
-    private int symbolLength;
-    private float[] symbol1;
-    private float[] symbol2;
+    private RangingConfig rangingConfig;
 
     // UI Component
     private TextView contentText;
@@ -90,9 +96,6 @@ public class MainActivity extends AppCompatActivity implements SharedPreferences
     private AudioRecord receiver;
     private AudioTrack sender;
 
-    private Float recentReceiver1Position;
-    private Float recentReceiver2Position;
-
     // Default value
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -154,6 +157,18 @@ public class MainActivity extends AppCompatActivity implements SharedPreferences
         fftLength = Integer.parseInt(preferences.getString(
                 getString(R.string.fft_length_key),
                 getString(R.string.fft_length_default)));
+        searchFraction = Float.parseFloat(preferences.getString(
+                getString(R.string.search_fraction_key),
+                getString(R.string.search_fraction_default)));
+        trackingEnabled = preferences.getBoolean(getString(R.string.tracking_enabled_key),
+                res.getBoolean(R.bool.tracking_enabled_default));
+        acquisitionDecimation = Integer.parseInt(preferences.getString(
+                getString(R.string.acquisition_decimation_key),
+                getString(R.string.acquisition_decimation_default)));
+        basebandEnabled = preferences.getBoolean(getString(R.string.baseband_enabled_key),
+                res.getBoolean(R.bool.baseband_enabled_default));
+        energyGateEnabled = preferences.getBoolean(getString(R.string.energy_gate_enabled_key),
+                res.getBoolean(R.bool.energy_gate_enabled_default));
         useSecondSender = preferences.getBoolean(getString(R.string.use_second_sender_key),
                 res.getBoolean(R.bool.use_second_sender_default));
         updateParameter();
@@ -400,6 +415,52 @@ public class MainActivity extends AppCompatActivity implements SharedPreferences
                 editor.putString(key, String.valueOf(fftLength));
                 editor.apply();
             }
+        } else if (key.equals(getString(R.string.search_fraction_key))) {
+            boolean commitBack = false;
+            try {
+                float newSearchFraction = Float.parseFloat(preferences.getString(key,
+                        getString(R.string.search_fraction_default)));
+                // At most the non-negative half of the spectrum is searched
+                if (newSearchFraction <= 0 || newSearchFraction > 0.5f)
+                    commitBack = true;
+                else
+                    searchFraction = newSearchFraction;
+            } catch (NumberFormatException e) {
+                commitBack = true;
+            }
+            if (commitBack) {
+                SharedPreferences.Editor editor = preferences.edit();
+                editor.putString(key, String.valueOf(searchFraction));
+                editor.apply();
+            }
+        } else if (key.equals(getString(R.string.tracking_enabled_key))) {
+            trackingEnabled = preferences.getBoolean(key,
+                    res.getBoolean(R.bool.tracking_enabled_default));
+        } else if (key.equals(getString(R.string.acquisition_decimation_key))) {
+            boolean commitBack = false;
+            try {
+                int newAcquisitionDecimation = Integer.parseInt(preferences.getString(key,
+                        getString(R.string.acquisition_decimation_default)));
+                if (newAcquisitionDecimation < 1) {
+                    acquisitionDecimation = 1;
+                    commitBack = true;
+                } else {
+                    acquisitionDecimation = newAcquisitionDecimation;
+                }
+            } catch (NumberFormatException e) {
+                commitBack = true;
+            }
+            if (commitBack) {
+                SharedPreferences.Editor editor = preferences.edit();
+                editor.putString(key, String.valueOf(acquisitionDecimation));
+                editor.apply();
+            }
+        } else if (key.equals(getString(R.string.baseband_enabled_key))) {
+            basebandEnabled = preferences.getBoolean(key,
+                    res.getBoolean(R.bool.baseband_enabled_default));
+        } else if (key.equals(getString(R.string.energy_gate_enabled_key))) {
+            energyGateEnabled = preferences.getBoolean(key,
+                    res.getBoolean(R.bool.energy_gate_enabled_default));
         } else if (key.equals(getString(R.string.use_second_sender_key))) {
             useSecondSender = preferences.getBoolean(key,
                     res.getBoolean(R.bool.use_second_sender_default));
@@ -407,36 +468,6 @@ public class MainActivity extends AppCompatActivity implements SharedPreferences
         updateParameter();
     }
 
-    private synchronized void setRecentReceiver1Position(float position) {
-        recentReceiver1Position = position;
-        if (recentReceiver2Position != null)
-            updateTwoDimensionPosition();
-    }
-
-    private synchronized void setRecentReceiver2Position(float position) {
-        recentReceiver2Position = position;
-        if (recentReceiver1Position != null)
-            updateTwoDimensionPosition();
-    }
-
-    private void updateTwoDimensionPosition() {
-        if (drawTwoDimension.get()) {
-            float p1 = recentReceiver1Position, p2 = recentReceiver2Position;
-            float d = 0.5f;
-            float x = (p2 * p2 - p1 * p1) / (4 * d);
-            float base = -(float) Math.pow(p1, 4) - (float) Math.pow(p2, 4)
-                    + 8 * d * d * (p1 * p1 + p2 * p2) + 2 * (p1 * p1 * p2 * p2)
-                    - 16 * (float) Math.pow(d, 4);
-            float y = 0;
-            if (base > 0)
-                y = (float) Math.sqrt(base) / (4 * d);
-            plotView.addPositionData(x, y);
-            plotView.postInvalidate();
-        }
-        recentReceiver1Position = null;
-        recentReceiver2Position = null;
-    }
-
     protected void setReceiverEnabled(boolean enabled) {
         if (receiverEnabled == enabled)
             return;
@@ -446,50 +477,12 @@ public class MainActivity extends AppCompatActivity implements SharedPreferences
                     CHANNEL_IN_CONFIG, AUDIO_IN_FORMAT, receiverBufferSize);
             receiver.startRecording();
             receiverOn.set(true);
-            ReceiverProcessor[] processors = new ReceiverProcessor[twoDimensionEnabled ? 2 : 1];
-            processors[0] = new ReceiverProcessor(1, symbol1,
-                    new ReceiverProcessorResultHandler() {
-                        @Override
-                        public int handle(int result, int length) {
-                            final float position = (float) result * SAMPLING_RATE_IN_HZ / length *
-                                    340 * cycleTime / Math.abs(endFreq1 - startFreq1);
-                            runOnUiThread(new Runnable() {
-                                @SuppressLint("DefaultLocale")
-                                @Override
-                                public void run() {
-                                    MainActivity.this.log(LogLevel.DEBUG,
-                                            String.format("D: Position@1: %f", position));
-                                }
-                            });
-                            plotView.addReceiver1Data(position);
-                            plotView.postInvalidate();
-                            setRecentReceiver1Position(position);
-                            return Math.round(position / 340 * SAMPLING_RATE_IN_HZ);
-                        }
-                    });
-            if (twoDimensionEnabled) {
-                processors[1] = new ReceiverProcessor(2, symbol2,
-                        new ReceiverProcessorResultHandler() {
-                            @Override
-                            public int handle(int result, int length) {
-                                final float position = (float) result * SAMPLING_RATE_IN_HZ /
-                                        length * 340 * cycleTime / Math.abs(endFreq2 - startFreq2);
-                                runOnUiThread(new Runnable() {
-                                    @SuppressLint("DefaultLocale")
-                                    @Override
-                                    public void run() {
-                                        MainActivity.this.log(LogLevel.DEBUG,
-                                                String.format("D: Position@2: %f", position));
-                                    }
-                                });
-                                plotView.addReceiver2Data(position);
-                                plotView.postInvalidate();
-                                setRecentReceiver2Position(position);
-                                return Math.round(position / 340 * SAMPLING_RATE_IN_HZ);
-                            }
-                        });
-            }
-            Thread receiverThread = new Thread(new ReceiverRunnable(processors), "Receiver Thread");
+            RangingEngine engine = new RangingEngine(rangingConfig, new RangingHandler());
+            FrameQueue queue = new FrameQueue(RECEIVER_QUEUE_CAPACITY, engine.getFrameLength());
+            Thread processorThread = new Thread(new ProcessorRunnable(engine, queue),
+                    "Processor Thread");
+            processorThread.start();
+            Thread receiverThread = new Thread(new ReceiverRunnable(queue), "Receiver Thread");
             receiverThread.start();
         } else {
             receiverOn.set(false);
@@ -499,180 +492,137 @@ public class MainActivity extends AppCompatActivity implements SharedPreferences
         }
     }
 
-    private interface ReceiverProcessorResultHandler {
-        int handle(int result, int length);
+    private void logOnUiThread(final LogLevel level, final String content) {
+        runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                MainActivity.this.log(level, content);
+            }
+        });
     }
 
-    private class ReceiverProcessor {
-        private float[] prevWindow;
-        private Deque<Float> intensitiesBuffer = new ArrayDeque<>();
-        private Deque<Integer> indicesBuffer = new ArrayDeque<>();
-        private boolean started = false;
-        private int paddingOffset = 65;
-        private float[] signalBuffer = new float[0];
-
-        private int receiverIndex;
-        private float[] symbol;
-        private ReceiverProcessorResultHandler handler;
-
-        public ReceiverProcessor(int receiverIndex, float[] symbol,
-                          ReceiverProcessorResultHandler handler) {
-            this.receiverIndex = receiverIndex;
-            this.symbol = symbol;
-            this.handler = handler;
+    private class RangingHandler implements RangingListener {
+        @SuppressLint("DefaultLocale")
+        @Override
+        public void range(int receiverIndex, float position) {
+            if (LogLevel.DEBUG.ordinal() <= logLevel.get())
+                logOnUiThread(LogLevel.DEBUG, String.format("D: Position@%d: %f",
+                        receiverIndex, position));
+            if (receiverIndex == 1)
+                plotView.addReceiver1Data(position);
+            else
+                plotView.addReceiver2Data(position);
+            plotView.postInvalidate();
         }
 
-        private void logOnUiThread(final LogLevel level, final String content) {
-            runOnUiThread(new Runnable() {
-                @Override
-                public void run() {
-                    MainActivity.this.log(level, content);
-                }
-            });
+        @Override
+        public void position(float x, float y) {
+            if (drawTwoDimension.get()) {
+                plotView.addPositionData(x, y);
+                plotView.postInvalidate();
+            }
         }
 
         @SuppressLint("DefaultLocale")
-        private void processWindow(float[] curWindow) {
-            if (prevWindow == null) {
-                prevWindow = curWindow;
-                return;
-            }
-            float[] window = new float[symbolLength * 2];
-            System.arraycopy(prevWindow, 0, window, 0, symbolLength);
-            System.arraycopy(curWindow, 0, window, symbolLength, symbolLength);
-            float[] cor = SignalProcessing.xcorr(window, symbol);
-            float[] clippedCor = new float[symbolLength];
-            System.arraycopy(cor, cor.length / 2, clippedCor, 0, symbolLength);
-            Box<Float> maxCor = new Box<>();
-            Box<Integer> index = new Box<>();
-            MathUtils.max(clippedCor, maxCor, index);
-            float intensity = maxCor.value / MathUtils.meanAbs(clippedCor);
-            intensitiesBuffer.add(intensity);
-            indicesBuffer.add(index.value);
-            if (intensitiesBuffer.size() > bufferLength) {
-                intensitiesBuffer.pop();
-            }
-            if (indicesBuffer.size() > bufferLength) {
-                indicesBuffer.pop();
-            }
-            if (intensitiesBuffer.size() == bufferLength &&
-                    indicesBuffer.size() == bufferLength) {
-                float meanIntensitiesBuffer = MathUtils.mean(intensitiesBuffer);
-                float meanIndicesBuffer = MathUtils.mean(indicesBuffer);
-                float stdIndicesBuffer = MathUtils.std(indicesBuffer, meanIndicesBuffer);
-                boolean skipSignalBuffer = false;
-                if (!started) {
-                    if (meanIntensitiesBuffer > startIntensityThreshold &&
-                            stdIndicesBuffer <= startIndexStdLimit) {
-                        started = true;
-                        logOnUiThread(LogLevel.INFO,
-                                String.format("I: Receiver@%d started: int: %f, dev %f",
-                                        receiverIndex, meanIntensitiesBuffer, stdIndicesBuffer));
-                        int indexOffset = Math.round(meanIndicesBuffer);
-                        indexOffset -= paddingOffset;
-                        if (indexOffset < 0)
-                            indexOffset += symbolLength;
-                        signalBuffer = Arrays.copyOfRange(window, indexOffset, symbolLength);
-                        skipSignalBuffer = true;
-                    }
-                } else {
-                    if (meanIntensitiesBuffer <= endIntensityThreshold ||
-                            stdIndicesBuffer > endIndexStdLimit) {
-                        started = false;
-                        logOnUiThread(LogLevel.INFO,
-                                String.format("I: Receiver@%d stopped: int: %f, dev %f",
-                                        receiverIndex, meanIndicesBuffer, stdIndicesBuffer));
-                        signalBuffer = new float[0];
-                    }
-                }
-                if (started && !skipSignalBuffer) {
-                    float[] newSignalBuffer = new float[signalBuffer.length + symbolLength];
-                    System.arraycopy(signalBuffer, 0, newSignalBuffer, 0, signalBuffer.length);
-                    System.arraycopy(window, 0, newSignalBuffer, signalBuffer.length, symbolLength);
-                    signalBuffer = newSignalBuffer;
-                    while (signalBuffer.length > symbolLength) {
-                        float[] signal = Arrays.copyOfRange(signalBuffer, 0, symbolLength);
-                        signalBuffer = Arrays.copyOfRange(signalBuffer, symbolLength,
-                                signalBuffer.length);
-                        int length = Math.max(symbolLength, fftLength);
-                        float[] realFFFIn = new float[length];
-                        for (int i = 0; i < symbolLength; ++i)
-                            realFFFIn[i] = signal[i] * symbol[i];
-                        float[] imagFFTIn = new float[length];
-                        FFT.fft(realFFFIn, imagFFTIn);
-                        float[] absFFTOut = new float[length];
-                        for (int i = 0; i < length; ++i)
-                            absFFTOut[i] = (float) Math.sqrt(realFFFIn[i] * realFFFIn[i] +
-                                    imagFFTIn[i] * imagFFTIn[i]);
-                        int end = length / 10;
-                        float max = Float.NEGATIVE_INFINITY;
-                        int maxIndex = 0;
-                        for (int i = 0; i < end; ++i) {
-                            if (absFFTOut[i] > max) {
-                                max = absFFTOut[i];
-                                maxIndex = i;
-                            }
-                        }
-                        paddingOffset = handler.handle(maxIndex, length);
-                    }
-                }
-            }
-            prevWindow = curWindow;
+        @Override
+        public void started(int receiverIndex, float intensity, float indexStd) {
+            logOnUiThread(LogLevel.INFO, String.format("I: Receiver@%d started: int: %f, dev %f",
+                    receiverIndex, intensity, indexStd));
+        }
+
+        @SuppressLint("DefaultLocale")
+        @Override
+        public void stopped(int receiverIndex, float intensity, float indexStd) {
+            logOnUiThread(LogLevel.INFO, String.format("I: Receiver@%d stopped: int: %f, dev %f",
+                    receiverIndex, intensity, indexStd));
+        }
+
+        @SuppressLint("DefaultLocale")
+        @Override
+        public void gate(boolean open, float score, long gatedCount, long checkedCount) {
+            logOnUiThread(LogLevel.INFO, String.format("I: Gate %s: sweep score %.2f, gated %d/%d",
+                    open ? "opened" : "closed", score, gatedCount, checkedCount));
+        }
+
+        @Override
+        public void window(float[] prevWindow, float[] curWindow) {
             if (drawTime.get()) {
+                float[] window = new float[prevWindow.length + curWindow.length];
+                System.arraycopy(prevWindow, 0, window, 0, prevWindow.length);
+                System.arraycopy(curWindow, 0, window, prevWindow.length, curWindow.length);
                 plotView.setTimeData(window);
                 plotView.postInvalidate();
             }
         }
     }
 
-    private class ReceiverRunnable implements Runnable {
-        private ReceiverProcessor[] processors;
+    private class ReceiverRunnable implements Runnable, PcmFramer.FrameHandler {
+        private FrameQueue queue;
+        private FrameQueue.Frame current;
 
-        private ReceiverRunnable(ReceiverProcessor[] processors) {
-            this.processors = processors;
+        private ReceiverRunnable(FrameQueue queue) {
+            this.queue = queue;
         }
 
-        private void logOnUiThread(final LogLevel level, final String content) {
-            runOnUiThread(new Runnable() {
-                @Override
-                public void run() {
-                    MainActivity.this.log(level, content);
-                }
-            });
+        @Override
+        public void run() {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(receiverBufferSize)
+                    .order(ByteOrder.nativeOrder());
+            ShortBuffer samples = buffer.asShortBuffer();
+            current = queue.acquire();
+            PcmFramer framer = new PcmFramer(current.samples);
+            while (receiverOn.get()) {
+                int result = receiver.read(buffer, receiverBufferSize);
+                if (result < 0)
+                    throw new RuntimeException("Error when reading audio");
+                if (!receiverOn.get())
+                    break;
+                framer.write(samples, 0, result / 2, this);
+            }
+        }
+
+        @Override
+        public float[] frame(float[] frame) {
+            FrameQueue.Frame next = queue.acquire();
+            if (next == null) {
+                // Processing fell behind, overwrite this frame
+                queue.drop();
+                return frame;
+            }
+            queue.offer(current);
+            current = next;
+            return next.samples;
+        }
+    }
+
+    private class ProcessorRunnable implements Runnable {
+        private RangingEngine engine;
+        private FrameQueue queue;
+
+        private ProcessorRunnable(RangingEngine engine, FrameQueue queue) {
+            this.engine = engine;
+            this.queue = queue;
         }
 
         @SuppressLint("DefaultLocale")
         @Override
         public void run() {
-            short[] prevBuffer = new short[0], curBuffer = new short[receiverBufferSize];
             while (receiverOn.get()) {
-                int read = 0;
-                while (receiverOn.get() && read != receiverBufferSize) {
-                    int result = receiver.read(curBuffer, read, receiverBufferSize);
-                    if (result < 0)
-                        throw new RuntimeException("Error when reading audio");
-                    read += result;
+                FrameQueue.Frame frame = queue.poll(PROCESSOR_POLL_TIMEOUT_NANOS);
+                if (frame == null)
+                    continue;
+                if (frame.discontinuity) {
+                    logOnUiThread(LogLevel.WARN,
+                            String.format("W: Processing behind, dropped: %d, max depth: %d/%d",
+                                    queue.getDropCount(), queue.getHighWaterMark(),
+                                    queue.capacity()));
+                    engine.reset();
                 }
-                if (!receiverOn.get())
-                    break;
-                short[] totalBuffer = new short[prevBuffer.length + curBuffer.length];
-                System.arraycopy(prevBuffer, 0, totalBuffer, 0, prevBuffer.length);
-                System.arraycopy(curBuffer, 0, totalBuffer, prevBuffer.length, curBuffer.length);
-                int bufferOffset = 0;
-                // logOnUiThread(LogLevel.INFO,
-                //         String.format("processing: %d", new Date().getTime()));
-                while (bufferOffset + symbolLength < totalBuffer.length) {
-                    float[] window = new float[symbolLength];
-                    for (int i = 0; i < symbolLength; ++i)
-                        window[i] = totalBuffer[bufferOffset + i] / SHORT_MAX;
-                    for (ReceiverProcessor processor: processors)
-                        processor.processWindow(window);
-                    bufferOffset += symbolLength;
-                }
-                // logOnUiThread(LogLevel.INFO,
-                //         String.format("processed: %d", new Date().getTime()));
-                prevBuffer = Arrays.copyOfRange(totalBuffer, bufferOffset, totalBuffer.length);
+                engine.process(frame.samples);
+                queue.release(frame);
             }
+            engine.shutdown();
         }
     }
 
@@ -698,32 +648,40 @@ public class MainActivity extends AppCompatActivity implements SharedPreferences
     private class SenderRunnable implements Runnable {
         @Override
         public void run() {
-            short[] data = new short[0];
-            float[] symbol = useSecondSender ? symbol2 : symbol1;
+            Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
+            float[] symbol = rangingConfig.symbol(useSecondSender ? 2 : 1);
+            // Rendered once, every write can fill the whole track buffer without converting
+            PcmLoop loop = new PcmLoop(symbol, SENDER_GAIN, senderBufferSize / 2);
+            ByteBuffer buffer = loop.getBuffer();
             while (senderOn.get()) {
-                if (data.length < symbolLength) {
-                    short[] newData = new short[data.length + symbolLength];
-                    System.arraycopy(data, 0, newData, 0, data.length);
-                    for (int i = 0; i < symbolLength; ++i)
-                        newData[data.length + i] = (short) Math.round(symbol[i] * 0.8 * SHORT_MAX);
-                    data = newData;
-                }
-                int result = sender.write(data, 0, data.length);
+                int result = sender.write(buffer, buffer.remaining(), AudioTrack.WRITE_BLOCKING);
                 if (result < 0)
                     throw new RuntimeException("Error when writing audio");
-                data = Arrays.copyOfRange(data, result, data.length);
+                loop.wrap();
             }
         }
     }
 
     protected void updateParameter() {
-        symbolLength = Math.round(cycleTime * SAMPLING_RATE_IN_HZ);
-        float[] symbolTime = new float[symbolLength];
-        float sampleTime = 1.0f / SAMPLING_RATE_IN_HZ;
-        for (int i = 0; i < symbolLength; ++i)
-            symbolTime[i] = i * sampleTime;
-        symbol1 = SignalProcessing.chirp(startFreq1, endFreq1, symbolTime);
-        symbol2 = SignalProcessing.chirp(startFreq2, endFreq2, symbolTime);
+        rangingConfig = new RangingConfig();
+        rangingConfig.samplingRate = SAMPLING_RATE_IN_HZ;
+        rangingConfig.cycleTime = cycleTime;
+        rangingConfig.startFreq1 = startFreq1;
+        rangingConfig.endFreq1 = endFreq1;
+        rangingConfig.startFreq2 = startFreq2;
+        rangingConfig.endFreq2 = endFreq2;
+        rangingConfig.twoDimensionEnabled = twoDimensionEnabled;
+        rangingConfig.startIntensityThreshold = startIntensityThreshold;
+        rangingConfig.startIndexStdLimit = startIndexStdLimit;
+        rangingConfig.endIntensityThreshold = endIntensityThreshold;
+        rangingConfig.endIndexStdLimit = endIndexStdLimit;
+        rangingConfig.bufferLength = bufferLength;
+        rangingConfig.fftLength = fftLength;
+        rangingConfig.searchFraction = searchFraction;
+        rangingConfig.trackingEnabled = trackingEnabled;
+        rangingConfig.acquisitionDecimation = acquisitionDecimation;
+        rangingConfig.basebandEnabled = basebandEnabled;
+        rangingConfig.energyGateEnabled = energyGateEnabled;
         if (!drawTime.get())
             plotView.setTimeData(null);
         plotView.setReceiver1Enabled(drawReceiver1.get());
@@ -51,6 +51,11 @@ public class SettingsActivity extends AppCompatActivity {
         private EditTextPreference endIndexStdLimitPreference;
         private EditTextPreference bufferLengthPreference;
         private EditTextPreference fftLengthPreference;
+        private EditTextPreference searchFractionPreference;
+        private SwitchPreferenceCompat trackingEnabledPreference;
+        private EditTextPreference acquisitionDecimationPreference;
+        private SwitchPreferenceCompat basebandEnabledPreference;
+        private SwitchPreferenceCompat energyGateEnabledPreference;
 
         private SwitchPreferenceCompat useSecondSenderPreference;
 
@@ -81,6 +86,13 @@ public class SettingsActivity extends AppCompatActivity {
                     getString(R.string.end_index_std_limit_key));
             bufferLengthPreference = findPreference(getString(R.string.buffer_length_key));
             fftLengthPreference = findPreference(getString(R.string.fft_length_key));
+            searchFractionPreference = findPreference(getString(R.string.search_fraction_key));
+            trackingEnabledPreference = findPreference(getString(R.string.tracking_enabled_key));
+            acquisitionDecimationPreference = findPreference(
+                    getString(R.string.acquisition_decimation_key));
+            basebandEnabledPreference = findPreference(getString(R.string.baseband_enabled_key));
+            energyGateEnabledPreference = findPreference(
+                    getString(R.string.energy_gate_enabled_key));
 
             useSecondSenderPreference = findPreference(getString(R.string.use_second_sender_key));
 
@@ -100,6 +112,10 @@ public class SettingsActivity extends AppCompatActivity {
                     new FloatOnBindEditTextListener());
             bufferLengthPreference.setOnBindEditTextListener(new IntegerOnBindEditTextListener());
             fftLengthPreference.setOnBindEditTextListener(new IntegerOnBindEditTextListener());
+            searchFractionPreference.setOnBindEditTextListener(
+                    new FloatOnBindEditTextListener());
+            acquisitionDecimationPreference.setOnBindEditTextListener(
+                    new IntegerOnBindEditTextListener());
 
             updateEnabled();
         }
@@ -142,6 +158,11 @@ public class SettingsActivity extends AppCompatActivity {
             endIndexStdLimitPreference.setEnabled(!receiverEnabled);
             bufferLengthPreference.setEnabled(!receiverEnabled);
             fftLengthPreference.setEnabled(!receiverEnabled);
+            searchFractionPreference.setEnabled(!receiverEnabled);
+            trackingEnabledPreference.setEnabled(!receiverEnabled);
+            acquisitionDecimationPreference.setEnabled(!receiverEnabled);
+            basebandEnabledPreference.setEnabled(!receiverEnabled);
+            energyGateEnabledPreference.setEnabled(!receiverEnabled);
             useSecondSenderPreference.setEnabled(!senderEnabled);
         }
 
@@ -195,6 +216,12 @@ public class SettingsActivity extends AppCompatActivity {
             } else if (key.equals(getString(R.string.fft_length_key))) {
                 fftLengthPreference.setText(preferences.getString(key,
                         getString(R.string.fft_length_default)));
+            } else if (key.equals(getString(R.string.search_fraction_key))) {
+                searchFractionPreference.setText(preferences.getString(key,
+                        getString(R.string.search_fraction_default)));
+            } else if (key.equals(getString(R.string.acquisition_decimation_key))) {
+                acquisitionDecimationPreference.setText(preferences.getString(key,
+                        getString(R.string.acquisition_decimation_default)));
             }
         }
     }
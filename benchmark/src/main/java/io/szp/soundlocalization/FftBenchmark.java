@@ -0,0 +1,108 @@
+package io.szp.soundlocalization;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FftBenchmark {
+    // The transforms work in place, so every call starts from a copy of the same input
+    public static class Signal {
+        float[] inputReal;
+        float[] inputImag;
+        float[] real;
+        float[] imag;
+
+        void fill(int size) {
+            Random random = new Random(0);
+            inputReal = new float[size];
+            inputImag = new float[size];
+            for (int i = 0; i < size; ++i) {
+                inputReal[i] = random.nextFloat() - 0.5f;
+                inputImag[i] = random.nextFloat() - 0.5f;
+            }
+            real = new float[size];
+            imag = new float[size];
+        }
+
+        void reload() {
+            System.arraycopy(inputReal, 0, real, 0, real.length);
+            System.arraycopy(inputImag, 0, imag, 0, imag.length);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Radix2 extends Signal {
+        // The powers of 2 that a 0.04 s symbol at 44.1 kHz and its correlation would be padded
+        // to without the other algorithms
+        @Param({"2048", "4096"})
+        public int size;
+
+        @Setup
+        public void setup() {
+            fill(size);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class MixedRadix extends Signal {
+        // Symbols of 0.02 s, 0.04 s and 0.08 s at 44.1 kHz, the last also the correlation length
+        // of the default 0.04 s symbol
+        @Param({"882", "1764", "3528"})
+        public int size;
+
+        @Setup
+        public void setup() {
+            fill(size);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Bluestein extends Signal {
+        // Primes either side of the default symbol, which fft() leaves to Bluestein, and the
+        // symbol itself to compare with its mixed-radix plan
+        @Param({"1759", "1764", "1777"})
+        public int size;
+
+        @Setup
+        public void setup() {
+            fill(size);
+        }
+    }
+
+    @Benchmark
+    public float[] fftRadix2(Radix2 signal) {
+        signal.reload();
+        FFT.fftRadix2(signal.real, signal.imag);
+        return signal.real;
+    }
+
+    @Benchmark
+    public float[] fftMixedRadix(MixedRadix signal) {
+        signal.reload();
+        FFT.fft(signal.real, signal.imag);
+        return signal.real;
+    }
+
+    @Benchmark
+    public float[] fftBluestein(Bluestein signal) {
+        signal.reload();
+        FFT.fftBluestein(signal.real, signal.imag);
+        return signal.real;
+    }
+}
@@ -0,0 +1,113 @@
+package io.szp.soundlocalization;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PipelineBenchmark {
+    // One window through the whole engine with the default settings on a single thread, either
+    // while acquiring (full or coarse correlation every window) or locked (tracking and
+    // dechirping). The energy gate is off so that acquisition never skips a window.
+    private static final int FRAMES = 64;
+    private static final int LOCK_FRAMES = 40;
+    private static final int DELAY = 300;
+
+    @Param({"acquisition", "locked"})
+    public String state;
+
+    @Param({"1", "4"})
+    public int acquisitionDecimation;
+
+    @Param({"false", "true"})
+    public boolean basebandEnabled;
+
+    private RangingEngine engine;
+    private float[][] frames;
+    private int next;
+
+    private static class LockListener implements RangingListener {
+        private volatile boolean locked;
+
+        @Override
+        public void range(int receiverIndex, float position) {
+        }
+
+        @Override
+        public void position(float x, float y) {
+        }
+
+        @Override
+        public void started(int receiverIndex, float intensity, float indexStd) {
+            locked = true;
+        }
+
+        @Override
+        public void stopped(int receiverIndex, float intensity, float indexStd) {
+            locked = false;
+        }
+
+        @Override
+        public void gate(boolean open, float score, long gatedCount, long checkedCount) {
+        }
+
+        @Override
+        public void window(float[] prevWindow, float[] curWindow) {
+        }
+    }
+
+    @Setup
+    public void setup() {
+        RangingConfig config = new RangingConfig();
+        config.threads = 1;
+        config.energyGateEnabled = false;
+        config.acquisitionDecimation = acquisitionDecimation;
+        config.basebandEnabled = basebandEnabled;
+        boolean locked = state.equals("locked");
+        if (!locked)
+            config.startIntensityThreshold = Float.MAX_VALUE;
+        LockListener listener = new LockListener();
+        engine = new RangingEngine(config, listener);
+        // A delayed periodic chirp under fresh noise in every frame
+        float[] symbol = config.symbol(1);
+        int length = symbol.length;
+        Random random = new Random(0);
+        frames = new float[FRAMES][length];
+        for (float[] frame: frames)
+            for (int i = 0; i < length; ++i)
+                frame[i] = 0.3f * symbol[(i + length - DELAY) % length] +
+                        0.01f * (random.nextFloat() - 0.5f);
+        for (int i = 0; i < LOCK_FRAMES; ++i)
+            process();
+        if (listener.locked != locked)
+            throw new IllegalStateException("Engine is not in the " + state + " state");
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Benchmark
+    public void process() {
+        engine.process(frames[next]);
+        next = (next + 1) % FRAMES;
+    }
+}
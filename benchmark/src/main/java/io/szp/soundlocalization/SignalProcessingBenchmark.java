@@ -0,0 +1,53 @@
+package io.szp.soundlocalization;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SignalProcessingBenchmark {
+    private static final float SAMPLING_RATE = 44100;
+
+    // Symbol lengths of 0.02 s, 0.04 s and 0.08 s cycles at 44.1 kHz
+    @Param({"882", "1764", "3528"})
+    public int length;
+
+    private float[] symbol;
+    private float[] window;
+
+    @Setup
+    public void setup() {
+        symbol = SignalProcessing.chirp(4000, 8000, length, SAMPLING_RATE, 0);
+        Random random = new Random(0);
+        window = new float[length];
+        for (int i = 0; i < length; ++i)
+            window[i] = 0.3f * symbol[(i + 300) % length] + 0.01f * (random.nextFloat() - 0.5f);
+    }
+
+    @Benchmark
+    public float[] xcorr() {
+        return SignalProcessing.xcorr(window, symbol);
+    }
+
+    // Uncached, as when the settings change
+    @Benchmark
+    public float[] chirp() {
+        return SignalProcessing.chirp(4000, 8000, length, SAMPLING_RATE, 0);
+    }
+}
@@ -0,0 +1,132 @@
+package io.szp.soundlocalization;
+
+public class BasebandDecimator {
+    // Streams real blocks to complex baseband: the band around centerFrequency is mixed down to
+    // 0, low-pass filtered with a windowed-sinc FIR and only every decimation-th output is
+    // computed (the polyphase form of filter-then-downsample). Frequencies are in cycles per
+    // input sample. Output sample m of a block lines up with input sample m * decimation +
+    // decimation - 1, delayed by the filter's (taps - 1) / 2 samples. Not thread-safe.
+    private final int decimation;
+    private final int blockLength;
+    private final float[] taps;
+    // Every block is mixed with the same table and kept in its own phase frame, the block's
+    // starting phasor is applied to the few outputs instead of to every input sample
+    private final float[] mixerReal;
+    private final float[] mixerImag;
+    private final float rotationReal;
+    private final float rotationImag;
+    private final double blockStepReal;
+    private final double blockStepImag;
+    private final float[] bufferReal;
+    private final float[] bufferImag;
+    private double phasorReal;
+    private double phasorImag;
+
+    public BasebandDecimator(float centerFrequency, float bandwidth, int decimation,
+                             int blockLength) {
+        this(centerFrequency, bandwidth, decimation, blockLength, false);
+    }
+
+    // With realOutput the caller moves the output up by a quarter of the decimated rate and keeps
+    // the real part, which also folds baseband f onto -f - 1 / (2 * decimation). The stopband
+    // then starts where that fold reaches the band rather than where decimation alone does.
+    public BasebandDecimator(float centerFrequency, float bandwidth, int decimation,
+                             int blockLength, boolean realOutput) {
+        if (decimation < 1 || blockLength < 1 || blockLength % decimation != 0)
+            throw new IllegalArgumentException("Block length is not a multiple of decimation");
+        float pass = bandwidth / 2, stop = (realOutput ? 0.5f : 1.0f) / decimation - pass;
+        if (bandwidth <= 0 || stop <= pass)
+            throw new IllegalArgumentException("Band does not fit the decimated rate");
+        this.decimation = decimation;
+        this.blockLength = blockLength;
+        mixerReal = new float[blockLength];
+        mixerImag = new float[blockLength];
+        for (int i = 0; i < blockLength; ++i) {
+            double angle = -2 * Math.PI * ((double) centerFrequency * i % 1);
+            mixerReal[i] = (float) Math.cos(angle);
+            mixerImag[i] = (float) Math.sin(angle);
+        }
+        double blockAngle = -2 * Math.PI * ((double) centerFrequency * blockLength % 1);
+        blockStepReal = Math.cos(blockAngle);
+        blockStepImag = Math.sin(blockAngle);
+        // Moves the history of the previous block into the frame of the next one
+        rotationReal = (float) blockStepReal;
+        rotationImag = (float) -blockStepImag;
+        // Hamming window, its transition band is about 3.3 / taps wide
+        int length = (int) Math.ceil(3.3 / (stop - pass)) | 1;
+        double cutoff = (pass + stop) / 2;
+        int middle = length / 2;
+        taps = new float[length];
+        double sum = 0;
+        for (int i = 0; i < length; ++i) {
+            int k = i - middle;
+            double sinc = k == 0 ? 2 * cutoff : Math.sin(2 * Math.PI * cutoff * k) / (Math.PI * k);
+            double window = 0.54 - 0.46 * Math.cos(2 * Math.PI * i / (length - 1));
+            taps[i] = (float) (sinc * window);
+            sum += taps[i];
+        }
+        for (int i = 0; i < length; ++i) // Unit gain at DC
+            taps[i] /= sum;
+        bufferReal = new float[length - 1 + blockLength];
+        bufferImag = new float[length - 1 + blockLength];
+        reset();
+    }
+
+    public int getDecimation() {
+        return decimation;
+    }
+
+    public int getBlockLength() {
+        return blockLength;
+    }
+
+    public int getOutputLength() {
+        return blockLength / decimation;
+    }
+
+    public int getTapCount() {
+        return taps.length;
+    }
+
+    public void reset() {
+        phasorReal = 1;
+        phasorImag = 0;
+        for (int i = 0; i < taps.length - 1; ++i) {
+            bufferReal[i] = 0;
+            bufferImag[i] = 0;
+        }
+    }
+
+    public void process(float[] input, float[] outReal, float[] outImag) {
+        if (input.length != blockLength || outReal.length < getOutputLength() ||
+                outImag.length < getOutputLength())
+            throw new IllegalArgumentException("Mismatched lengths");
+        int history = taps.length - 1;
+        for (int i = 0; i < blockLength; ++i) {
+            bufferReal[history + i] = input[i] * mixerReal[i];
+            bufferImag[history + i] = input[i] * mixerImag[i];
+        }
+        float phaseReal = (float) phasorReal, phaseImag = (float) phasorImag;
+        for (int m = 0, end = history + decimation - 1; m < getOutputLength();
+             ++m, end += decimation) {
+            float sumReal = 0, sumImag = 0;
+            for (int k = 0; k < taps.length; ++k) {
+                sumReal += taps[k] * bufferReal[end - k];
+                sumImag += taps[k] * bufferImag[end - k];
+            }
+            outReal[m] = sumReal * phaseReal - sumImag * phaseImag;
+            outImag[m] = sumReal * phaseImag + sumImag * phaseReal;
+        }
+        for (int i = 0; i < history; ++i) {
+            float real = bufferReal[blockLength + i], imag = bufferImag[blockLength + i];
+            bufferReal[i] = real * rotationReal - imag * rotationImag;
+            bufferImag[i] = real * rotationImag + imag * rotationReal;
+        }
+        // Renormalise once per block so the rounding errors cannot build up
+        double real = phasorReal * blockStepReal - phasorImag * blockStepImag;
+        double imag = phasorReal * blockStepImag + phasorImag * blockStepReal;
+        double norm = Math.sqrt(real * real + imag * imag);
+        phasorReal = real / norm;
+        phasorImag = imag / norm;
+    }
+}
@@ -0,0 +1,83 @@
+package io.szp.soundlocalization;
+
+public class BasebandFrontEnd {
+    // Mixes the band [lowFrequency, highFrequency] to complex baseband, decimates it with a
+    // polyphase FIR and moves it back up to a quarter of the decimated rate as real samples, so
+    // everything downstream keeps working on real signals, only at a few kHz. Multiplying by
+    // i^m shifts by a quarter of the rate and taking the real part needs no arithmetic. The real
+    // part mirrors the decimated spectrum about 0, so the filter also stops everything that the
+    // mirror would fold into the band. Frequencies are in Hz. Not thread-safe.
+    // Room the band leaves in half the decimated rate, the rest is the filter's transition band
+    private static final float BAND_MARGIN = 1.25f;
+
+    private final float samplingRate;
+    private final float centerFrequency;
+    private final int decimation;
+    private final BasebandDecimator decimator;
+    private final float[] real;
+    private final float[] imag;
+    private int outputPhase;
+
+    // Uses the largest decimation up to maxDecimation that divides the block length and keeps the
+    // band inside the decimated Nyquist range, which may be 1
+    public BasebandFrontEnd(float samplingRate, float lowFrequency, float highFrequency,
+                            int maxDecimation, int blockLength) {
+        if (samplingRate <= 0 || lowFrequency < 0 || highFrequency <= lowFrequency ||
+                highFrequency > samplingRate / 2 || maxDecimation < 1 || blockLength < 1)
+            throw new IllegalArgumentException("Invalid band or decimation");
+        this.samplingRate = samplingRate;
+        centerFrequency = (lowFrequency + highFrequency) / 2;
+        float bandwidth = highFrequency - lowFrequency;
+        int d = maxDecimation;
+        while (d > 1 && (blockLength % d != 0 ||
+                bandwidth * BAND_MARGIN > samplingRate / d / 2))
+            --d;
+        decimation = d;
+        decimator = new BasebandDecimator(centerFrequency / samplingRate,
+                bandwidth / samplingRate, decimation, blockLength, true);
+        real = new float[decimator.getOutputLength()];
+        imag = new float[decimator.getOutputLength()];
+    }
+
+    public int getDecimation() {
+        return decimation;
+    }
+
+    public float getOutputRate() {
+        return samplingRate / decimation;
+    }
+
+    public int getOutputLength() {
+        return real.length;
+    }
+
+    // Group delay of the anti-alias filter in output samples
+    public float getDelay() {
+        return (decimator.getTapCount() - 1) / 2.0f / decimation;
+    }
+
+    // Where an input frequency inside the band ends up in the output
+    public float mapFrequency(float frequency) {
+        return frequency - centerFrequency + getOutputRate() / 4;
+    }
+
+    public void reset() {
+        decimator.reset();
+        outputPhase = 0;
+    }
+
+    public void process(float[] input, float[] output) {
+        if (output.length != real.length)
+            throw new IllegalArgumentException("Mismatched lengths");
+        decimator.process(input, real, imag);
+        for (int m = 0; m < real.length; ++m) {
+            switch (outputPhase) {
+                case 0: output[m] = real[m]; break;
+                case 1: output[m] = -imag[m]; break;
+                case 2: output[m] = -real[m]; break;
+                default: output[m] = imag[m]; break;
+            }
+            outputPhase = (outputPhase + 1) & 3;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package io.szp.soundlocalization;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class BatchRunner {
+    // Replays every recording of a directory on a ForkJoinPool, one engine per file, and sums
+    // the per-file reports. Each engine runs single-threaded, the pool supplies the parallelism.
+    private static final String USAGE = "Usage: BatchRunner [--parallelism N] [--raw RATE] " +
+            "[--events DIRECTORY] [--set NAME=VALUE]... INPUT_DIRECTORY [REPORT]\n" +
+            "  Replays the .wav files, and with --raw the .pcm and .raw files, of " +
+            "INPUT_DIRECTORY\n  NAME is any public field of RangingConfig";
+
+    public static class FileResult {
+        public final File file;
+        // Null when the file failed, error then says why
+        public ReplayRunner.Report report;
+        public String error;
+
+        private FileResult(File file) {
+            this.file = file;
+        }
+    }
+
+    public static class BatchReport {
+        // In the order of the input files
+        public final List<FileResult> files;
+        // Sum over the files that succeeded, its elapsed time is CPU time spent replaying
+        public final ReplayRunner.Report total = new ReplayRunner.Report();
+        public double elapsedSeconds;
+
+        private BatchReport(List<FileResult> files) {
+            this.files = files;
+        }
+
+        // Audio seconds per wall-clock second
+        public double throughput() {
+            return total.audioSeconds / elapsedSeconds;
+        }
+
+        public int failures() {
+            int failures = 0;
+            for (FileResult result: files)
+                if (result.report == null)
+                    ++failures;
+            return failures;
+        }
+    }
+
+    private static class ReplayTask extends RecursiveTask<List<FileResult>> {
+        private static final long serialVersionUID = 1L;
+
+        private final RangingConfig config;
+        private final List<File> files;
+        private final int rawRate;
+        private final File eventDirectory;
+
+        private ReplayTask(RangingConfig config, List<File> files, int rawRate,
+                           File eventDirectory) {
+            this.config = config;
+            this.files = files;
+            this.rawRate = rawRate;
+            this.eventDirectory = eventDirectory;
+        }
+
+        @Override
+        protected List<FileResult> compute() {
+            if (files.size() == 1)
+                return Collections.singletonList(replay(files.get(0)));
+            int middle = files.size() / 2;
+            ReplayTask first = new ReplayTask(config, files.subList(0, middle), rawRate,
+                    eventDirectory);
+            ReplayTask second = new ReplayTask(config, files.subList(middle, files.size()),
+                    rawRate, eventDirectory);
+            first.fork();
+            List<FileResult> results = new ArrayList<>(second.compute());
+            results.addAll(0, first.join());
+            return results;
+        }
+
+        private FileResult replay(File file) {
+            FileResult result = new FileResult(file);
+            try (PcmFile input = isWav(file) ? PcmFile.openWav(file) :
+                    PcmFile.openRaw(file, rawRate)) {
+                if (eventDirectory == null) {
+                    result.report = ReplayRunner.replay(config, input, null);
+                } else {
+                    File events = new File(eventDirectory, file.getName() + ".tsv");
+                    try (Writer output = new BufferedWriter(new OutputStreamWriter(
+                            new FileOutputStream(events), "UTF-8"))) {
+                        result.report = ReplayRunner.replay(config, input, output);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // One bad recording should not cost the rest of the batch
+                result.report = null;
+                result.error = e.toString();
+            }
+            return result;
+        }
+    }
+
+    private static boolean isWav(File file) {
+        return file.getName().toLowerCase(Locale.ROOT).endsWith(".wav");
+    }
+
+    // Recordings of a directory sorted by name; raw files only with a positive rawRate
+    public static List<File> listRecordings(File directory, int rawRate) throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null)
+            throw new IOException("Cannot list " + directory);
+        Arrays.sort(files);
+        List<File> recordings = new ArrayList<>();
+        for (File file: files) {
+            String name = file.getName().toLowerCase(Locale.ROOT);
+            if (file.isFile() && (name.endsWith(".wav") ||
+                    rawRate > 0 && (name.endsWith(".pcm") || name.endsWith(".raw"))))
+                recordings.add(file);
+        }
+        return recordings;
+    }
+
+    // Events of each file go to eventDirectory/<name>.tsv unless it is null
+    public static BatchReport run(RangingConfig config, List<File> files, int rawRate,
+                                  File eventDirectory, int parallelism) {
+        if (parallelism <= 0)
+            throw new IllegalArgumentException("Invalid parallelism");
+        config = config.copy();
+        config.threads = 1;
+        long start = System.nanoTime();
+        List<FileResult> results = Collections.emptyList();
+        if (!files.isEmpty()) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                results = pool.invoke(new ReplayTask(config, new ArrayList<>(files), rawRate,
+                        eventDirectory));
+            } finally {
+                pool.shutdown();
+            }
+        }
+        BatchReport report = new BatchReport(results);
+        report.elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        for (FileResult result: results)
+            if (result.report != null)
+                report.total.add(result.report);
+        return report;
+    }
+
+    // One row per file, the totals, then the summed range histogram, all tab-separated
+    public static void write(BatchReport report, Writer writer) throws IOException {
+        PrintWriter output = new PrintWriter(writer);
+        output.println("file\taudio_s\telapsed_s\treal_time\tframes\tlock_s\tstarts\tranges\t" +
+                "positions\terror");
+        for (FileResult result: report.files) {
+            ReplayRunner.Report file = result.report;
+            if (file == null) {
+                output.println(result.file.getName() + "\t\t\t\t\t\t\t\t\t" + result.error);
+                continue;
+            }
+            output.println(String.format(Locale.ROOT, "%s\t%.2f\t%.3f\t%.1f\t%d\t%s\t%d\t%d\t%d\t",
+                    result.file.getName(), file.audioSeconds, file.elapsedSeconds,
+                    file.realTimeFactor(), file.frames, Double.isNaN(file.lockTime) ? "" :
+                            String.format(Locale.ROOT, "%.3f", file.lockTime),
+                    file.starts, file.ranges, file.positions));
+        }
+        ReplayRunner.Report total = report.total;
+        output.println(String.format(Locale.ROOT, "total\t%.2f\t%.3f\t%.1f\t%d\t\t%d\t%d\t%d\t%d",
+                total.audioSeconds, report.elapsedSeconds, report.throughput(), total.frames,
+                total.starts, total.ranges, total.positions, report.failures()));
+        output.println();
+        output.println("range_m\tcount");
+        for (Map.Entry<Integer, Long> entry: total.rangeHistogram.entrySet())
+            output.println(String.format(Locale.ROOT, "%.2f\t%d",
+                    entry.getKey() * ReplayRunner.HISTOGRAM_BIN, entry.getValue()));
+        output.flush();
+        if (output.checkError())
+            throw new IOException("Failed to write report");
+    }
+
+    public static void main(String[] args) throws IOException {
+        RangingConfig config = new RangingConfig();
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        int rawRate = 0;
+        File eventDirectory = null;
+        List<String> paths = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; ++i) {
+                if (args[i].equals("--parallelism") && i + 1 < args.length) {
+                    parallelism = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--raw") && i + 1 < args.length) {
+                    rawRate = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--events") && i + 1 < args.length) {
+                    eventDirectory = new File(args[++i]);
+                } else if (args[i].equals("--set") && i + 1 < args.length) {
+                    String[] setting = args[++i].split("=", 2);
+                    if (setting.length != 2)
+                        throw new IllegalArgumentException("Expected NAME=VALUE");
+                    config.set(setting[0], setting[1]);
+                } else if (args[i].startsWith("--")) {
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+                } else {
+                    paths.add(args[i]);
+                }
+            }
+            if (paths.size() != 1 && paths.size() != 2)
+                throw new IllegalArgumentException("Expected INPUT_DIRECTORY");
+            if (parallelism <= 0)
+                throw new IllegalArgumentException("Invalid parallelism");
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        if (eventDirectory != null && !eventDirectory.isDirectory() && !eventDirectory.mkdirs())
+            throw new IOException("Cannot create " + eventDirectory);
+        List<File> files = listRecordings(new File(paths.get(0)), rawRate);
+        BatchReport report = run(config, files, rawRate, eventDirectory, parallelism);
+        if (paths.size() == 2) {
+            try (Writer output = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(paths.get(1)), "UTF-8"))) {
+                write(report, output);
+            }
+        } else {
+            Writer output = new OutputStreamWriter(System.out, "UTF-8");
+            write(report, output);
+        }
+        System.err.println(String.format(Locale.ROOT,
+                "%d files, %.1f s of audio in %.2f s, %.1fx real time on %d threads, %d failed",
+                report.files.size(), report.total.audioSeconds, report.elapsedSeconds,
+                report.throughput(), parallelism, report.failures()));
+    }
+}
@@ -0,0 +1,150 @@
+package io.szp.soundlocalization;
+
+public class CoarseCorrelator {
+    // First stage of acquisition: consecutive blocks and the symbol are taken to complex baseband
+    // and decimated, then correlated at the low rate. The symbol's band is measured from its own
+    // spectrum. Only lags 0 .. blockLength - 1 of [previous block, current block] are searched,
+    // on a grid of decimation samples, and the caller refines the peak at the full rate.
+    // Not thread-safe.
+    private static final float BAND_ENERGY = 0.99f;
+
+    private final int blockLength;
+    private final int decimation;
+    private final BasebandDecimator decimator;
+    private final FftPlan plan;
+    private final float[] referenceReal;
+    private final float[] referenceImag;
+    private float[] prevReal;
+    private float[] prevImag;
+    private float[] curReal;
+    private float[] curImag;
+    private final float[] real;
+    private final float[] imag;
+    private final float[] magnitudes;
+    private boolean primed = false;
+    private int index;
+    private float intensity;
+
+    // Uses the largest decimation up to maxDecimation that divides the symbol length and leaves
+    // room for the symbol's band, which may be 1
+    public CoarseCorrelator(float[] symbol, int maxDecimation) {
+        blockLength = symbol.length;
+        if (blockLength < 2 || maxDecimation < 1)
+            throw new IllegalArgumentException("Invalid symbol or decimation");
+        float[] band = occupiedBand(symbol);
+        float center = (band[0] + band[1]) / 2, width = band[1] - band[0];
+        int d = maxDecimation;
+        while (d > 1 && (blockLength % d != 0 || width * d >= 1))
+            --d;
+        decimation = d;
+        width = Math.max(width, Float.MIN_NORMAL);
+        decimator = new BasebandDecimator(center, width, decimation, blockLength);
+        int length = decimator.getOutputLength();
+        int size = 2 * length;
+        while (!FftPlan.isSmooth(size))
+            ++size;
+        plan = FftPlan.get(size);
+        referenceReal = new float[size];
+        referenceImag = new float[size];
+        decimator.process(symbol, referenceReal, referenceImag);
+        decimator.reset();
+        plan.forward(referenceReal, referenceImag);
+        for (int i = 0; i < size; ++i)
+            referenceImag[i] = -referenceImag[i];
+        prevReal = new float[length];
+        prevImag = new float[length];
+        curReal = new float[length];
+        curImag = new float[length];
+        real = new float[size];
+        imag = new float[size];
+        magnitudes = new float[length];
+    }
+
+    // Smallest band [low, high] in cycles per sample holding BAND_ENERGY of the symbol's energy,
+    // trimmed evenly from both sides
+    private static float[] occupiedBand(float[] symbol) {
+        int n = symbol.length % 2 == 0 ? symbol.length : symbol.length + 1;
+        RealFftPlan plan = RealFftPlan.get(n);
+        float[] real = new float[plan.spectrumSize()], imag = new float[plan.spectrumSize()];
+        plan.forward(symbol, real, imag);
+        double total = 0;
+        double[] power = new double[real.length];
+        for (int i = 0; i < real.length; ++i) {
+            power[i] = (double) real[i] * real[i] + (double) imag[i] * imag[i];
+            total += power[i];
+        }
+        double tail = total * (1 - BAND_ENERGY) / 2, sum = 0;
+        int low = 0, high = real.length - 1;
+        while (low < high && sum + power[low] <= tail)
+            sum += power[low++];
+        sum = 0;
+        while (high > low && sum + power[high] <= tail)
+            sum += power[high--];
+        return new float[] { (float) low / n, (float) high / n };
+    }
+
+    public int getBlockLength() {
+        return blockLength;
+    }
+
+    public int getDecimation() {
+        return decimation;
+    }
+
+    public void reset() {
+        decimator.reset();
+        primed = false;
+    }
+
+    // Returns false while there is no previous block yet, otherwise getIndex() and
+    // getIntensity() describe the strongest lag
+    public boolean process(float[] block) {
+        if (block.length != blockLength)
+            throw new IllegalArgumentException("Mismatched lengths");
+        decimator.process(block, curReal, curImag);
+        boolean ready = primed;
+        if (ready) {
+            int length = curReal.length;
+            System.arraycopy(prevReal, 0, real, 0, length);
+            System.arraycopy(prevImag, 0, imag, 0, length);
+            System.arraycopy(curReal, 0, real, length, length);
+            System.arraycopy(curImag, 0, imag, length, length);
+            for (int i = 2 * length; i < real.length; ++i) {
+                real[i] = 0;
+                imag[i] = 0;
+            }
+            plan.forward(real, imag);
+            for (int i = 0; i < real.length; ++i) {
+                float temp = real[i] * referenceReal[i] - imag[i] * referenceImag[i];
+                imag[i] = imag[i] * referenceReal[i] + real[i] * referenceImag[i];
+                real[i] = temp;
+            }
+            plan.inverse(real, imag);
+            for (int i = 0; i < length; ++i)
+                magnitudes[i] = (float) Math.sqrt(real[i] * real[i] + imag[i] * imag[i]);
+            int peak = MathUtils.argmax(magnitudes);
+            index = peak * decimation;
+            // The real full-rate correlation oscillates under this envelope, its mean absolute
+            // value is about 2 / pi of the envelope's; scale to match the full-rate intensity
+            intensity = (float) (Math.PI / 2) * magnitudes[peak] / MathUtils.mean(magnitudes);
+        }
+        float[] temp = prevReal;
+        prevReal = curReal;
+        curReal = temp;
+        temp = prevImag;
+        prevImag = curImag;
+        curImag = temp;
+        primed = true;
+        return ready;
+    }
+
+    // Lag of the strongest peak in full-rate samples, a multiple of the decimation
+    public int getIndex() {
+        return index;
+    }
+
+    // Peak magnitude over the mean magnitude of the searched lags, scaled as described above
+    public float getIntensity() {
+        return intensity;
+    }
+}
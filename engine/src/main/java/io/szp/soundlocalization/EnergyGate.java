@@ -0,0 +1,136 @@
+package io.szp.soundlocalization;
+
+public class EnergyGate {
+    // Cheap pre-detector run before any correlation, for blocks one chirp period long. Each block
+    // is cut into SEGMENTS segments and Goertzel probes spread over [lowFrequency, highFrequency]
+    // measure the power of every segment and probe. A chirp sweeping the band moves one probe per
+    // segment, so its power lines up along a diagonal of that grid (rising or falling, wrapped at
+    // the period), while noise, speech and tones spread over it. The grid is averaged over blocks,
+    // which the periodic chirp survives and the noise does not, and the score is the strongest
+    // diagonal over the mean one. Being a ratio it adapts to the noise level by itself, and a
+    // chirp a few dB under the in-band noise still scores well above the noise alone.
+    // Only every STRIDE-th segment is measured per block, in turn, to halve the cost. The gate
+    // opens at OPEN_SCORE and closes below CLOSE_SCORE. Frequencies are in cycles per sample.
+    // Not thread-safe.
+    private static final int SEGMENTS = 16;
+    private static final int STRIDE = 2;
+    private static final float SMOOTHING = 1 / 16.0f;
+    private static final float OPEN_SCORE = 1.4f;
+    private static final float CLOSE_SCORE = 1.25f;
+    static final int MIN_BLOCK_LENGTH = SEGMENTS * 4;
+
+    private final int blockLength;
+    private final int segmentLength;
+    private final float[] coefficients;
+    // Averaged power, segment-major
+    private final float[] cells;
+    private boolean open = true;
+    private float score;
+    // Blocks measured since the grid was last cleared
+    private long blocks;
+    private long checkedCount;
+    private long gatedCount;
+
+    public EnergyGate(float lowFrequency, float highFrequency, int blockLength) {
+        if (lowFrequency < 0 || highFrequency <= lowFrequency || highFrequency > 0.5f ||
+                blockLength < MIN_BLOCK_LENGTH)
+            throw new IllegalArgumentException("Invalid band or block length");
+        this.blockLength = blockLength;
+        segmentLength = blockLength / SEGMENTS;
+        float bandwidth = highFrequency - lowFrequency;
+        coefficients = new float[SEGMENTS];
+        for (int k = 0; k < SEGMENTS; ++k) {
+            double frequency = lowFrequency + (k + 0.5) * bandwidth / SEGMENTS;
+            coefficients[k] = (float) (2 * Math.cos(2 * Math.PI * frequency));
+        }
+        cells = new float[SEGMENTS * SEGMENTS];
+    }
+
+    // Returns whether the block is worth processing
+    public boolean process(float[] block) {
+        if (block.length != blockLength)
+            throw new IllegalArgumentException("Mismatched lengths");
+        // A plain mean until there are 1 / SMOOTHING measurements of each cell
+        float weight = Math.max(SMOOTHING, 1.0f / (blocks / STRIDE + 1));
+        for (int s = (int) (blocks % STRIDE); s < SEGMENTS; s += STRIDE)
+            measure(block, s, weight);
+        ++blocks;
+        ++checkedCount;
+        if (blocks < STRIDE) {
+            score = 0;
+            return true;
+        }
+        float total = 0, best = 0;
+        for (float cell: cells)
+            total += cell;
+        for (int offset = 0; offset < SEGMENTS; ++offset) {
+            float rising = 0, falling = 0;
+            for (int s = 0; s < SEGMENTS; ++s) {
+                rising += cells[s * SEGMENTS + (s + offset) % SEGMENTS];
+                falling += cells[s * SEGMENTS + (offset - s + SEGMENTS) % SEGMENTS];
+            }
+            best = Math.max(best, Math.max(rising, falling));
+        }
+        score = total > 0 ? best * SEGMENTS / total : 0;
+        open = score >= (open ? CLOSE_SCORE : OPEN_SCORE);
+        if (!open)
+            ++gatedCount;
+        return open;
+    }
+
+    // Four probes at a time, so that their recurrences do not wait on each other
+    private void measure(float[] block, int segment, float weight) {
+        int from = segment * segmentLength, to = from + segmentLength;
+        for (int k = 0; k < SEGMENTS; k += 4) {
+            float c0 = coefficients[k], c1 = coefficients[k + 1];
+            float c2 = coefficients[k + 2], c3 = coefficients[k + 3];
+            float a0 = 0, b0 = 0, a1 = 0, b1 = 0, a2 = 0, b2 = 0, a3 = 0, b3 = 0;
+            for (int i = from; i < to; ++i) {
+                float value = block[i];
+                float t0 = value + c0 * a0 - b0;
+                float t1 = value + c1 * a1 - b1;
+                float t2 = value + c2 * a2 - b2;
+                float t3 = value + c3 * a3 - b3;
+                b0 = a0;
+                a0 = t0;
+                b1 = a1;
+                a1 = t1;
+                b2 = a2;
+                a2 = t2;
+                b3 = a3;
+                a3 = t3;
+            }
+            int cell = segment * SEGMENTS + k;
+            update(cell, a0 * a0 + b0 * b0 - c0 * a0 * b0, weight);
+            update(cell + 1, a1 * a1 + b1 * b1 - c1 * a1 * b1, weight);
+            update(cell + 2, a2 * a2 + b2 * b2 - c2 * a2 * b2, weight);
+            update(cell + 3, a3 * a3 + b3 * b3 - c3 * a3 * b3, weight);
+        }
+    }
+
+    private void update(int cell, float power, float weight) {
+        cells[cell] += weight * (power - cells[cell]);
+    }
+
+    // Forgets the averaged grid, for blocks that no longer follow on from the last one. The gate
+    // stays open until the whole grid has been measured again, then averages it afresh.
+    public void reset() {
+        open = true;
+        score = 0;
+        blocks = 0;
+    }
+
+    // Strongest sweep over the mean one for the last block, a little above 1 without a chirp and
+    // 0 until the grid is complete
+    public float getScore() {
+        return score;
+    }
+
+    public long getCheckedCount() {
+        return checkedCount;
+    }
+
+    public long getGatedCount() {
+        return gatedCount;
+    }
+}
@@ -0,0 +1,59 @@
+package io.szp.soundlocalization;
+
+public class FFT {
+    // Any length, with the algorithm FftPlan picks for it
+    public static void fft(float[] real, float[] imag) {
+        if (real.length != imag.length)
+            throw new IllegalArgumentException("Mismatched lengths");
+        FftPlan.get(real.length).forward(real, imag);
+    }
+
+    public static void fftRadix2(float[] real, float[] imag) {
+        if (real.length != imag.length)
+            throw new IllegalArgumentException("Mismatched lengths");
+        FftPlan plan = FftPlan.get(real.length);
+        if (plan.size() > 1 && !plan.isRadix2())
+            throw new IllegalArgumentException("Length is not a power of 2");
+        plan.forward(real, imag);
+    }
+
+    // Bluestein's algorithm whatever the length, mostly to measure it
+    public static void fftBluestein(float[] real, float[] imag) {
+        if (real.length != imag.length)
+            throw new IllegalArgumentException("Mismatched lengths");
+        FftPlan.getBluestein(real.length).forward(real, imag);
+    }
+
+    public static void ifft(float[] real, float[] imag) {
+        if (real.length != imag.length)
+            throw new IllegalArgumentException("Mismatched lengths");
+        FftPlan.get(real.length).inverse(real, imag);
+    }
+
+    public static void rfft(float[] input, int n, float[] real, float[] imag) {
+        RealFftPlan.get(n).forward(input, real, imag);
+    }
+
+    public static void irfft(float[] real, float[] imag, float[] output) {
+        RealFftPlan.get(output.length).inverse(real, imag, output);
+    }
+
+    public static void cconv(float[] xReal, float[] xImag, float[] yReal, float[] yImag,
+                             float[] outReal, float[] outImag) {
+        if (xReal.length != xImag.length || xReal.length != yReal.length
+                || yReal.length != yImag.length || xReal.length != outReal.length
+                || outReal.length != outImag.length)
+            throw new IllegalArgumentException("Mismatched lengths");
+
+        int n = xReal.length;
+        FftPlan plan = FftPlan.get(n);
+
+        plan.forward(xReal, xImag);
+        plan.forward(yReal, yImag);
+        for (int i = 0; i < n; i++) {
+            outReal[i] = xReal[i] * yReal[i] - xImag[i] * yImag[i];
+            outImag[i] = xImag[i] * yReal[i] + xReal[i] * yImag[i];
+        }
+        plan.inverse(outReal, outImag);
+    }
+}
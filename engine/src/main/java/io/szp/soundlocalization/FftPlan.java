@@ -0,0 +1,494 @@
+package io.szp.soundlocalization;
+
+import java.util.Arrays;
+
+public class FftPlan {
+    // Plans are immutable once built, scratch space is kept per thread. There are only a few
+    // lengths, so the caches are arrays replaced on every miss: lookups take no lock and box
+    // nothing.
+    private static final Object lock = new Object();
+    private static volatile FftPlan[] plans = new FftPlan[0];
+    private static volatile FftPlan[] bluesteinPlans = new FftPlan[0];
+
+    // Radix-2 for powers of 2, mixed radix for 7-smooth lengths and Bluestein otherwise
+    public static FftPlan get(int n) {
+        FftPlan plan = find(plans, n);
+        return plan != null ? plan : create(n, false);
+    }
+
+    // Bluestein for every length above 1, to compare it against the other algorithms
+    public static FftPlan getBluestein(int n) {
+        FftPlan plan = find(bluesteinPlans, n);
+        return plan != null ? plan : create(n, true);
+    }
+
+    private static FftPlan find(FftPlan[] plans, int n) {
+        for (FftPlan plan: plans) {
+            if (plan.n == n)
+                return plan;
+        }
+        return null;
+    }
+
+    private static FftPlan create(int n, boolean bluestein) {
+        if (n < 0)
+            throw new IllegalArgumentException("Negative length");
+        synchronized (lock) {
+            FftPlan plan = find(bluestein ? bluesteinPlans : plans, n);
+            if (plan != null)
+                return plan;
+            plan = new FftPlan(n, bluestein);
+            // Building a Bluestein plan may have added its convolution plan meanwhile
+            FftPlan[] current = bluestein ? bluesteinPlans : plans;
+            FftPlan[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = plan;
+            if (bluestein)
+                bluesteinPlans = updated;
+            else
+                plans = updated;
+            return plan;
+        }
+    }
+
+    private static final int[] RADICES = new int[] { 2, 3, 5, 7 };
+    private static final float SIN_60 = (float) Math.sin(Math.PI / 3);
+    private static final float COS_72 = (float) Math.cos(2 * Math.PI / 5);
+    private static final float SIN_72 = (float) Math.sin(2 * Math.PI / 5);
+    private static final float COS_144 = (float) Math.cos(4 * Math.PI / 5);
+    private static final float SIN_144 = (float) Math.sin(4 * Math.PI / 5);
+    private static final float COS_7_1 = (float) Math.cos(2 * Math.PI / 7);
+    private static final float SIN_7_1 = (float) Math.sin(2 * Math.PI / 7);
+    private static final float COS_7_2 = (float) Math.cos(4 * Math.PI / 7);
+    private static final float SIN_7_2 = (float) Math.sin(4 * Math.PI / 7);
+    private static final float COS_7_3 = (float) Math.cos(6 * Math.PI / 7);
+    private static final float SIN_7_3 = (float) Math.sin(6 * Math.PI / 7);
+
+    private final int n;
+
+    // Radix-2
+    private int[] bitReversal;
+    private float[] cosTable;
+    private float[] sinTable;
+
+    // Mixed radix
+    private int[] factors;
+    private float[] twiddleCos;
+    private float[] twiddleSin;
+
+    // Bluestein
+    private float[] chirpCos;
+    private float[] chirpSin;
+    private float[] kernelReal;
+    private float[] kernelImag;
+    private FftPlan convolutionPlan;
+    private ThreadLocal<float[][]> scratch;
+
+    private FftPlan(int n, boolean bluestein) {
+        this.n = n;
+        if (n <= 1)
+            return;
+        if (bluestein)
+            initBluestein();
+        else if ((n & (n - 1)) == 0)
+            initRadix2();
+        else if (isSmooth(n))
+            initMixedRadix();
+        else
+            initBluestein();
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public boolean isRadix2() {
+        return bitReversal != null;
+    }
+
+    public boolean isMixedRadix() {
+        return factors != null;
+    }
+
+    public boolean isBluestein() {
+        return convolutionPlan != null;
+    }
+
+    public static boolean isSmooth(int n) {
+        if (n < 1)
+            return false;
+        for (int p: RADICES) {
+            while (n % p == 0)
+                n /= p;
+        }
+        return n == 1;
+    }
+
+    private void initRadix2() {
+        int levels = Integer.numberOfTrailingZeros(n);
+        bitReversal = new int[n];
+        for (int i = 0; i < n; i++)
+            bitReversal[i] = Integer.reverse(i) >>> (32 - levels);
+        cosTable = new float[n / 2];
+        sinTable = new float[n / 2];
+        for (int i = 0; i < n / 2; i++) {
+            cosTable[i] = (float) Math.cos(2 * Math.PI * i / n);
+            sinTable[i] = (float) Math.sin(2 * Math.PI * i / n);
+        }
+    }
+
+    private void initMixedRadix() {
+        // Radix-4 passes first, then whatever is left of 2, 3, 5 and 7
+        int[] buffer = new int[32];
+        int count = 0, rest = n;
+        while (rest % 4 == 0) {
+            buffer[count++] = 4;
+            rest /= 4;
+        }
+        for (int p: RADICES) {
+            while (rest % p == 0) {
+                buffer[count++] = p;
+                rest /= p;
+            }
+        }
+        factors = new int[count];
+        System.arraycopy(buffer, 0, factors, 0, count);
+        twiddleCos = new float[n];
+        twiddleSin = new float[n];
+        for (int i = 0; i < n; i++) {
+            twiddleCos[i] = (float) Math.cos(2 * Math.PI * i / n);
+            twiddleSin[i] = (float) Math.sin(2 * Math.PI * i / n);
+        }
+        scratch = new ThreadLocal<float[][]>() {
+            @Override
+            protected float[][] initialValue() {
+                return new float[][] { new float[n], new float[n] };
+            }
+        };
+    }
+
+    private void initBluestein() {
+        // Find a power-of-2 convolution length m such that m >= n * 2 - 1
+        int m = 1;
+        while (m < n * 2 - 1)
+            m *= 2;
+        convolutionPlan = get(m);
+
+        chirpCos = new float[n];
+        chirpSin = new float[n];
+        for (int i = 0; i < n; i++) {
+            long j = (long) i * i % (n * 2); // This is more accurate than j = i * i
+            chirpCos[i] = (float) Math.cos(Math.PI * j / n);
+            chirpSin[i] = (float) Math.sin(Math.PI * j / n);
+        }
+
+        kernelReal = new float[m];
+        kernelImag = new float[m];
+        kernelReal[0] = chirpCos[0];
+        kernelImag[0] = chirpSin[0];
+        for (int i = 1; i < n; i++) {
+            kernelReal[i] = kernelReal[m - i] = chirpCos[i];
+            kernelImag[i] = kernelImag[m - i] = chirpSin[i];
+        }
+        convolutionPlan.forward(kernelReal, kernelImag);
+
+        final int size = m;
+        scratch = new ThreadLocal<float[][]>() {
+            @Override
+            protected float[][] initialValue() {
+                return new float[][] { new float[size], new float[size] };
+            }
+        };
+    }
+
+    // Transforms the first n elements, the arrays may be longer
+    public void forward(float[] real, float[] imag) {
+        if (real.length < n || imag.length < n)
+            throw new IllegalArgumentException("Mismatched lengths");
+        if (n <= 1)
+            return;
+        if (bitReversal != null)
+            radix2(real, imag);
+        else if (factors != null)
+            mixedRadix(real, imag);
+        else
+            bluestein(real, imag);
+    }
+
+    public void inverse(float[] real, float[] imag) {
+        forward(imag, real);
+        for (int i = 0; i < n; i++) { // Scaling (because this FFT implementation omits it)
+            real[i] = real[i] / n;
+            imag[i] = imag[i] / n;
+        }
+    }
+
+    private void radix2(float[] real, float[] imag) {
+        // Bit-reversed addressing permutation
+        for (int i = 0; i < n; i++) {
+            int j = bitReversal[i];
+            if (j > i) {
+                float temp = real[i];
+                real[i] = real[j];
+                real[j] = temp;
+                temp = imag[i];
+                imag[i] = imag[j];
+                imag[j] = temp;
+            }
+        }
+
+        // Cooley-Tukey decimation-in-time radix-2 FFT
+        for (int size = 2; size <= n; size *= 2) {
+            int halfsize = size / 2;
+            int tablestep = n / size;
+            for (int i = 0; i < n; i += size) {
+                for (int j = i, k = 0; j < i + halfsize; j++, k += tablestep) {
+                    float tpre = real[j + halfsize] * cosTable[k] + imag[j + halfsize] * sinTable[k];
+                    float tpim = -real[j + halfsize] * sinTable[k] + imag[j + halfsize] * cosTable[k];
+                    real[j + halfsize] = real[j] - tpre;
+                    imag[j + halfsize] = imag[j] - tpim;
+                    real[j] += tpre;
+                    imag[j] += tpim;
+                }
+            }
+        }
+    }
+
+    private void mixedRadix(float[] real, float[] imag) {
+        // Stockham autosort, ping-ponging between the input and the scratch buffers
+        float[][] buffers = scratch.get();
+        float[] xReal = real, xImag = imag, yReal = buffers[0], yImag = buffers[1];
+        int stride = 1, length = n;
+        for (int radix: factors) {
+            int m = length / radix;
+            switch (radix) {
+                case 2:
+                    pass2(m, stride, xReal, xImag, yReal, yImag);
+                    break;
+                case 3:
+                    pass3(m, stride, xReal, xImag, yReal, yImag);
+                    break;
+                case 4:
+                    pass4(m, stride, xReal, xImag, yReal, yImag);
+                    break;
+                case 5:
+                    pass5(m, stride, xReal, xImag, yReal, yImag);
+                    break;
+                default:
+                    pass7(m, stride, xReal, xImag, yReal, yImag);
+                    break;
+            }
+            float[] temp = xReal;
+            xReal = yReal;
+            yReal = temp;
+            temp = xImag;
+            xImag = yImag;
+            yImag = temp;
+            length = m;
+            stride *= radix;
+        }
+        if (xReal != real) {
+            System.arraycopy(xReal, 0, real, 0, n);
+            System.arraycopy(xImag, 0, imag, 0, n);
+        }
+    }
+
+    // Each pass reads x[q + s * (p + k * m)] and writes y[q + s * (radix * p + j)] multiplied by
+    // the twiddle factor w^(p * j * s), where w = exp(-2 * pi * i / n)
+
+    private void pass2(int m, int s, float[] xr, float[] xi, float[] yr, float[] yi) {
+        for (int p = 0; p < m; p++) {
+            float w1r = twiddleCos[p * s], w1i = twiddleSin[p * s];
+            int in = s * p, out = s * 2 * p;
+            for (int q = 0; q < s; q++) {
+                int i0 = in + q, i1 = i0 + s * m;
+                int o0 = out + q, o1 = o0 + s;
+                float ar = xr[i0], ai = xi[i0], br = xr[i1], bi = xi[i1];
+                float dr = ar - br, di = ai - bi;
+                yr[o0] = ar + br;
+                yi[o0] = ai + bi;
+                yr[o1] = dr * w1r + di * w1i;
+                yi[o1] = di * w1r - dr * w1i;
+            }
+        }
+    }
+
+    private void pass3(int m, int s, float[] xr, float[] xi, float[] yr, float[] yi) {
+        for (int p = 0; p < m; p++) {
+            float w1r = twiddleCos[p * s], w1i = twiddleSin[p * s];
+            float w2r = twiddleCos[2 * p * s], w2i = twiddleSin[2 * p * s];
+            int in = s * p, out = s * 3 * p;
+            for (int q = 0; q < s; q++) {
+                int i0 = in + q, i1 = i0 + s * m, i2 = i1 + s * m;
+                int o0 = out + q, o1 = o0 + s, o2 = o1 + s;
+                float a0r = xr[i0], a0i = xi[i0];
+                float br = xr[i1] + xr[i2], bi = xi[i1] + xi[i2];
+                float dr = SIN_60 * (xr[i1] - xr[i2]), di = SIN_60 * (xi[i1] - xi[i2]);
+                float tr = a0r - 0.5f * br, ti = a0i - 0.5f * bi;
+                float c1r = tr + di, c1i = ti - dr;
+                float c2r = tr - di, c2i = ti + dr;
+                yr[o0] = a0r + br;
+                yi[o0] = a0i + bi;
+                yr[o1] = c1r * w1r + c1i * w1i;
+                yi[o1] = c1i * w1r - c1r * w1i;
+                yr[o2] = c2r * w2r + c2i * w2i;
+                yi[o2] = c2i * w2r - c2r * w2i;
+            }
+        }
+    }
+
+    private void pass4(int m, int s, float[] xr, float[] xi, float[] yr, float[] yi) {
+        for (int p = 0; p < m; p++) {
+            float w1r = twiddleCos[p * s], w1i = twiddleSin[p * s];
+            float w2r = twiddleCos[2 * p * s], w2i = twiddleSin[2 * p * s];
+            float w3r = twiddleCos[3 * p * s], w3i = twiddleSin[3 * p * s];
+            int in = s * p, out = s * 4 * p;
+            for (int q = 0; q < s; q++) {
+                int i0 = in + q, i1 = i0 + s * m, i2 = i1 + s * m, i3 = i2 + s * m;
+                int o0 = out + q, o1 = o0 + s, o2 = o1 + s, o3 = o2 + s;
+                float sr = xr[i0] + xr[i2], si = xi[i0] + xi[i2];
+                float dr = xr[i0] - xr[i2], di = xi[i0] - xi[i2];
+                float tr = xr[i1] + xr[i3], ti = xi[i1] + xi[i3];
+                float ur = xr[i1] - xr[i3], ui = xi[i1] - xi[i3];
+                float c1r = dr + ui, c1i = di - ur;
+                float c2r = sr - tr, c2i = si - ti;
+                float c3r = dr - ui, c3i = di + ur;
+                yr[o0] = sr + tr;
+                yi[o0] = si + ti;
+                yr[o1] = c1r * w1r + c1i * w1i;
+                yi[o1] = c1i * w1r - c1r * w1i;
+                yr[o2] = c2r * w2r + c2i * w2i;
+                yi[o2] = c2i * w2r - c2r * w2i;
+                yr[o3] = c3r * w3r + c3i * w3i;
+                yi[o3] = c3i * w3r - c3r * w3i;
+            }
+        }
+    }
+
+    private void pass5(int m, int s, float[] xr, float[] xi, float[] yr, float[] yi) {
+        for (int p = 0; p < m; p++) {
+            float w1r = twiddleCos[p * s], w1i = twiddleSin[p * s];
+            float w2r = twiddleCos[2 * p * s], w2i = twiddleSin[2 * p * s];
+            float w3r = twiddleCos[3 * p * s], w3i = twiddleSin[3 * p * s];
+            float w4r = twiddleCos[4 * p * s], w4i = twiddleSin[4 * p * s];
+            int in = s * p, out = s * 5 * p;
+            for (int q = 0; q < s; q++) {
+                int i0 = in + q, i1 = i0 + s * m, i2 = i1 + s * m, i3 = i2 + s * m;
+                int i4 = i3 + s * m;
+                int o0 = out + q, o1 = o0 + s, o2 = o1 + s, o3 = o2 + s, o4 = o3 + s;
+                float a0r = xr[i0], a0i = xi[i0];
+                float b1r = xr[i1] + xr[i4], b1i = xi[i1] + xi[i4];
+                float d1r = xr[i1] - xr[i4], d1i = xi[i1] - xi[i4];
+                float b2r = xr[i2] + xr[i3], b2i = xi[i2] + xi[i3];
+                float d2r = xr[i2] - xr[i3], d2i = xi[i2] - xi[i3];
+                float a1r = a0r + COS_72 * b1r + COS_144 * b2r;
+                float a1i = a0i + COS_72 * b1i + COS_144 * b2i;
+                float a2r = a0r + COS_144 * b1r + COS_72 * b2r;
+                float a2i = a0i + COS_144 * b1i + COS_72 * b2i;
+                float x1r = SIN_72 * d1r + SIN_144 * d2r, x1i = SIN_72 * d1i + SIN_144 * d2i;
+                float x2r = SIN_144 * d1r - SIN_72 * d2r, x2i = SIN_144 * d1i - SIN_72 * d2i;
+                float c1r = a1r + x1i, c1i = a1i - x1r;
+                float c4r = a1r - x1i, c4i = a1i + x1r;
+                float c2r = a2r + x2i, c2i = a2i - x2r;
+                float c3r = a2r - x2i, c3i = a2i + x2r;
+                yr[o0] = a0r + b1r + b2r;
+                yi[o0] = a0i + b1i + b2i;
+                yr[o1] = c1r * w1r + c1i * w1i;
+                yi[o1] = c1i * w1r - c1r * w1i;
+                yr[o2] = c2r * w2r + c2i * w2i;
+                yi[o2] = c2i * w2r - c2r * w2i;
+                yr[o3] = c3r * w3r + c3i * w3i;
+                yi[o3] = c3i * w3r - c3r * w3i;
+                yr[o4] = c4r * w4r + c4i * w4i;
+                yi[o4] = c4i * w4r - c4r * w4i;
+            }
+        }
+    }
+
+    private void pass7(int m, int s, float[] xr, float[] xi, float[] yr, float[] yi) {
+        for (int p = 0; p < m; p++) {
+            float w1r = twiddleCos[p * s], w1i = twiddleSin[p * s];
+            float w2r = twiddleCos[2 * p * s], w2i = twiddleSin[2 * p * s];
+            float w3r = twiddleCos[3 * p * s], w3i = twiddleSin[3 * p * s];
+            float w4r = twiddleCos[4 * p * s], w4i = twiddleSin[4 * p * s];
+            float w5r = twiddleCos[5 * p * s], w5i = twiddleSin[5 * p * s];
+            float w6r = twiddleCos[6 * p * s], w6i = twiddleSin[6 * p * s];
+            int in = s * p, out = s * 7 * p;
+            for (int q = 0; q < s; q++) {
+                int i0 = in + q, i1 = i0 + s * m, i2 = i1 + s * m, i3 = i2 + s * m;
+                int i4 = i3 + s * m, i5 = i4 + s * m, i6 = i5 + s * m;
+                int o0 = out + q, o1 = o0 + s, o2 = o1 + s, o3 = o2 + s;
+                int o4 = o3 + s, o5 = o4 + s, o6 = o5 + s;
+                float a0r = xr[i0], a0i = xi[i0];
+                float b1r = xr[i1] + xr[i6], b1i = xi[i1] + xi[i6];
+                float d1r = xr[i1] - xr[i6], d1i = xi[i1] - xi[i6];
+                float b2r = xr[i2] + xr[i5], b2i = xi[i2] + xi[i5];
+                float d2r = xr[i2] - xr[i5], d2i = xi[i2] - xi[i5];
+                float b3r = xr[i3] + xr[i4], b3i = xi[i3] + xi[i4];
+                float d3r = xr[i3] - xr[i4], d3i = xi[i3] - xi[i4];
+                float a1r = a0r + COS_7_1 * b1r + COS_7_2 * b2r + COS_7_3 * b3r;
+                float a1i = a0i + COS_7_1 * b1i + COS_7_2 * b2i + COS_7_3 * b3i;
+                float a2r = a0r + COS_7_2 * b1r + COS_7_3 * b2r + COS_7_1 * b3r;
+                float a2i = a0i + COS_7_2 * b1i + COS_7_3 * b2i + COS_7_1 * b3i;
+                float a3r = a0r + COS_7_3 * b1r + COS_7_1 * b2r + COS_7_2 * b3r;
+                float a3i = a0i + COS_7_3 * b1i + COS_7_1 * b2i + COS_7_2 * b3i;
+                float x1r = SIN_7_1 * d1r + SIN_7_2 * d2r + SIN_7_3 * d3r;
+                float x1i = SIN_7_1 * d1i + SIN_7_2 * d2i + SIN_7_3 * d3i;
+                float x2r = SIN_7_2 * d1r - SIN_7_3 * d2r - SIN_7_1 * d3r;
+                float x2i = SIN_7_2 * d1i - SIN_7_3 * d2i - SIN_7_1 * d3i;
+                float x3r = SIN_7_3 * d1r - SIN_7_1 * d2r + SIN_7_2 * d3r;
+                float x3i = SIN_7_3 * d1i - SIN_7_1 * d2i + SIN_7_2 * d3i;
+                float c1r = a1r + x1i, c1i = a1i - x1r;
+                float c6r = a1r - x1i, c6i = a1i + x1r;
+                float c2r = a2r + x2i, c2i = a2i - x2r;
+                float c5r = a2r - x2i, c5i = a2i + x2r;
+                float c3r = a3r + x3i, c3i = a3i - x3r;
+                float c4r = a3r - x3i, c4i = a3i + x3r;
+                yr[o0] = a0r + b1r + b2r + b3r;
+                yi[o0] = a0i + b1i + b2i + b3i;
+                yr[o1] = c1r * w1r + c1i * w1i;
+                yi[o1] = c1i * w1r - c1r * w1i;
+                yr[o2] = c2r * w2r + c2i * w2i;
+                yi[o2] = c2i * w2r - c2r * w2i;
+                yr[o3] = c3r * w3r + c3i * w3i;
+                yi[o3] = c3i * w3r - c3r * w3i;
+                yr[o4] = c4r * w4r + c4i * w4i;
+                yi[o4] = c4i * w4r - c4r * w4i;
+                yr[o5] = c5r * w5r + c5i * w5i;
+                yi[o5] = c5i * w5r - c5r * w5i;
+                yr[o6] = c6r * w6r + c6i * w6i;
+                yi[o6] = c6i * w6r - c6r * w6i;
+            }
+        }
+    }
+
+    private void bluestein(float[] real, float[] imag) {
+        float[][] buffers = scratch.get();
+        float[] aReal = buffers[0], aImag = buffers[1];
+        int m = aReal.length;
+
+        // Preprocessing
+        for (int i = 0; i < n; i++) {
+            aReal[i] = real[i] * chirpCos[i] + imag[i] * chirpSin[i];
+            aImag[i] = -real[i] * chirpSin[i] + imag[i] * chirpCos[i];
+        }
+        for (int i = n; i < m; i++) {
+            aReal[i] = 0;
+            aImag[i] = 0;
+        }
+
+        // Convolution with the cached kernel spectrum
+        convolutionPlan.forward(aReal, aImag);
+        for (int i = 0; i < m; i++) {
+            float temp = aReal[i] * kernelReal[i] - aImag[i] * kernelImag[i];
+            aImag[i] = aImag[i] * kernelReal[i] + aReal[i] * kernelImag[i];
+            aReal[i] = temp;
+        }
+        convolutionPlan.inverse(aReal, aImag);
+
+        // Postprocessing
+        for (int i = 0; i < n; i++) {
+            real[i] = aReal[i] * chirpCos[i] + aImag[i] * chirpSin[i];
+            imag[i] = -aReal[i] * chirpSin[i] + aImag[i] * chirpCos[i];
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.szp.soundlocalization;
+
+public class FloatRingBuffer {
+    // Every sample is stored twice, at i and i + capacity, so any run of up to capacity buffered
+    // samples is contiguous in array() starting at readOffset() and can be read in place
+    private final int capacity;
+    private final float[] data;
+    private int head;
+    private int size;
+
+    public FloatRingBuffer(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be positive");
+        this.capacity = capacity;
+        data = new float[capacity * 2];
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    public void write(float[] source, int offset, int length) {
+        if (length > capacity - size)
+            throw new IllegalStateException("Ring buffer overflow");
+        int tail = (head + size) % capacity;
+        int first = Math.min(length, capacity - tail);
+        System.arraycopy(source, offset, data, tail, first);
+        System.arraycopy(source, offset, data, tail + capacity, first);
+        if (first < length) {
+            System.arraycopy(source, offset + first, data, 0, length - first);
+            System.arraycopy(source, offset + first, data, capacity, length - first);
+        }
+        size += length;
+    }
+
+    public void discard(int length) {
+        if (length > size)
+            throw new IllegalStateException("Ring buffer underflow");
+        head = (head + length) % capacity;
+        size -= length;
+    }
+
+    public float[] array() {
+        return data;
+    }
+
+    public int readOffset() {
+        return head;
+    }
+}
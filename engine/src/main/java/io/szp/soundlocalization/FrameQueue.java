@@ -0,0 +1,126 @@
+package io.szp.soundlocalization;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class FrameQueue {
+    // Bounded lock-free single-producer/single-consumer queue of pooled frames. The producer
+    // acquires empty frames from the pool and offers filled ones, the consumer polls them and
+    // releases them back to the pool. When the consumer falls behind the pool runs dry, the
+    // producer drops the frame it is filling and the next offered frame is marked as following
+    // a discontinuity. Capacity is the number of pooled frames, including the one being filled
+    // and the one being processed, so the queue itself can never overflow.
+    public static class Frame {
+        public final float[] samples;
+        public boolean discontinuity;
+
+        private Frame(int length) {
+            samples = new float[length];
+        }
+    }
+
+    private final int capacity;
+    private final Frame[] queue;
+    private final Frame[] pool;
+    private final AtomicLong queueHead = new AtomicLong(); // Written by the consumer
+    private final AtomicLong queueTail = new AtomicLong(); // Written by the producer
+    private final AtomicLong poolHead = new AtomicLong();  // Written by the producer
+    private final AtomicLong poolTail = new AtomicLong();  // Written by the consumer
+    private final AtomicLong dropCount = new AtomicLong();
+    private final AtomicLong highWaterMark = new AtomicLong();
+    private volatile Thread consumer;
+    private boolean pendingDiscontinuity;
+
+    public FrameQueue(int capacity, int frameLength) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be positive");
+        this.capacity = capacity;
+        queue = new Frame[capacity];
+        pool = new Frame[capacity];
+        for (int i = 0; i < pool.length; ++i)
+            pool[i] = new Frame(frameLength);
+        poolTail.set(pool.length);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int depth() {
+        return (int) (queueTail.get() - queueHead.get());
+    }
+
+    public long getHighWaterMark() {
+        return highWaterMark.get();
+    }
+
+    public long getDropCount() {
+        return dropCount.get();
+    }
+
+    // Producer side
+
+    public Frame acquire() {
+        long head = poolHead.get();
+        if (head == poolTail.get())
+            return null;
+        int index = (int) (head % pool.length);
+        Frame frame = pool[index];
+        pool[index] = null;
+        poolHead.lazySet(head + 1);
+        return frame;
+    }
+
+    public void offer(Frame frame) {
+        long tail = queueTail.get();
+        long depth = tail + 1 - queueHead.get();
+        frame.discontinuity = pendingDiscontinuity;
+        pendingDiscontinuity = false;
+        queue[(int) (tail % capacity)] = frame;
+        queueTail.set(tail + 1); // Full fence so the consumer check below cannot miss a wake up
+        if (depth > highWaterMark.get())
+            highWaterMark.lazySet(depth);
+        Thread thread = consumer;
+        if (thread != null)
+            LockSupport.unpark(thread);
+    }
+
+    public void drop() {
+        pendingDiscontinuity = true;
+        dropCount.lazySet(dropCount.get() + 1);
+    }
+
+    // Consumer side
+
+    public Frame poll() {
+        long head = queueHead.get();
+        if (head == queueTail.get())
+            return null;
+        int index = (int) (head % capacity);
+        Frame frame = queue[index];
+        queue[index] = null;
+        queueHead.lazySet(head + 1);
+        return frame;
+    }
+
+    // Waits up to timeoutNanos for a frame, returns null on timeout
+    public Frame poll(long timeoutNanos) {
+        Frame frame = poll();
+        if (frame != null)
+            return frame;
+        consumer = Thread.currentThread();
+        frame = poll();
+        if (frame == null) {
+            LockSupport.parkNanos(this, timeoutNanos);
+            frame = poll();
+        }
+        consumer = null;
+        return frame;
+    }
+
+    public void release(Frame frame) {
+        long tail = poolTail.get();
+        pool[(int) (tail % pool.length)] = frame;
+        poolTail.lazySet(tail + 1);
+    }
+}
@@ -0,0 +1,68 @@
+package io.szp.soundlocalization;
+
+public class MatchedFilter {
+    // Holds the conjugated reference spectrum at the correlation size, so each input costs one
+    // forward FFT, one complex multiply and one inverse FFT. Not thread-safe, the scratch
+    // buffers are shared between calls.
+    private final int referenceLength;
+    private final int inputLength;
+    private final RealFftPlan plan;
+    private final float[] referenceReal;
+    private final float[] referenceImag;
+    private final float[] spectrumReal;
+    private final float[] spectrumImag;
+    private final float[] result;
+
+    public MatchedFilter(float[] reference, int inputLength) {
+        if (reference.length == 0 || inputLength < reference.length)
+            throw new IllegalArgumentException("Input shorter than reference");
+        this.referenceLength = reference.length;
+        this.inputLength = inputLength;
+        plan = RealFftPlan.get(SignalProcessing.correlationLength(inputLength));
+        int h = plan.spectrumSize();
+        referenceReal = new float[h];
+        referenceImag = new float[h];
+        plan.forward(reference, referenceReal, referenceImag);
+        for (int i = 0; i < h; ++i)
+            referenceImag[i] = -referenceImag[i];
+        spectrumReal = new float[h];
+        spectrumImag = new float[h];
+        result = new float[plan.size()];
+    }
+
+    public int getReferenceLength() {
+        return referenceLength;
+    }
+
+    public int getInputLength() {
+        return inputLength;
+    }
+
+    public int size() {
+        return plan.size();
+    }
+
+    // Multiplies a half spectrum of size() by the conjugated reference spectrum in place
+    public void multiply(float[] real, float[] imag) {
+        multiply(real, imag, real, imag);
+    }
+
+    // Same as above but leaves the input spectrum intact, output may alias input
+    public void multiply(float[] real, float[] imag, float[] outReal, float[] outImag) {
+        for (int i = 0; i < referenceReal.length; ++i) {
+            float temp = real[i] * referenceReal[i] - imag[i] * referenceImag[i];
+            outImag[i] = imag[i] * referenceReal[i] + real[i] * referenceImag[i];
+            outReal[i] = temp;
+        }
+    }
+
+    // Writes the correlation at lags 0 .. output.length - 1
+    public void correlate(float[] input, float[] output) {
+        if (input.length != inputLength || output.length > inputLength)
+            throw new IllegalArgumentException("Mismatched lengths");
+        plan.forward(input, spectrumReal, spectrumImag);
+        multiply(spectrumReal, spectrumImag);
+        plan.inverse(spectrumReal, spectrumImag, result);
+        System.arraycopy(result, 0, output, 0, output.length);
+    }
+}
@@ -4,6 +4,12 @@ import java.util.Deque;
 
 public class MathUtils {
     public static void max(float[] input, Box<Float> max, Box<Integer> index) {
+        int intIndex = argmax(input);
+        max.value = input.length == 0 ? Float.NEGATIVE_INFINITY : input[intIndex];
+        index.value = intIndex;
+    }
+
+    public static int argmax(float[] input) {
         float floatMax = Float.NEGATIVE_INFINITY;
         int intIndex = 0;
         for (int i = 0; i < input.length; ++i) {
@@ -12,8 +18,7 @@ public class MathUtils {
                 intIndex = i;
             }
         }
-        max.value = floatMax;
-        index.value = intIndex;
+        return intIndex;
     }
 
     public static <T extends Number> float mean(Deque<T> input) {
@@ -24,6 +29,13 @@ public class MathUtils {
         return sum / input.size();
     }
 
+    public static float mean(float[] input) {
+        float sum = 0;
+        for (float i: input)
+            sum += i;
+        return sum / input.length;
+    }
+
     public static float meanAbs(float[] input) {
         float sum = 0;
         for (float i: input)
@@ -0,0 +1,150 @@
+package io.szp.soundlocalization;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+
+public class PcmFile implements Closeable {
+    // Little-endian int16 PCM read through memory maps of at most mapSize bytes at a time, so a
+    // recording of any length streams through without being loaded onto the heap. WAV files are
+    // parsed for their format and data chunk, raw files are taken as mono at a given rate.
+    // Samples of all channels stay interleaved. Not thread-safe.
+    private static final int DEFAULT_MAP_SIZE = 1 << 26;
+    private static final int WAVE_FORMAT_PCM = 1;
+    private static final int WAVE_FORMAT_EXTENSIBLE = 0xFFFE;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final int sampleRate;
+    private final int channels;
+    private final long dataOffset;
+    private final long dataSize;
+    private final int mapSize;
+    private long position;
+
+    private PcmFile(RandomAccessFile file, int sampleRate, int channels, long dataOffset,
+                    long dataSize, int mapSize) {
+        this.file = file;
+        channel = file.getChannel();
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+        this.dataOffset = dataOffset;
+        // Whole sample frames only, a truncated recording may end in the middle of one
+        this.dataSize = dataSize - dataSize % (2 * channels);
+        this.mapSize = Math.max(1, mapSize / (2 * channels)) * 2 * channels;
+    }
+
+    public static PcmFile openRaw(File path, int sampleRate) throws IOException {
+        return openRaw(path, sampleRate, DEFAULT_MAP_SIZE);
+    }
+
+    static PcmFile openRaw(File path, int sampleRate, int mapSize) throws IOException {
+        if (sampleRate <= 0)
+            throw new IllegalArgumentException("Invalid sample rate");
+        RandomAccessFile file = new RandomAccessFile(path, "r");
+        return new PcmFile(file, sampleRate, 1, 0, file.length(), mapSize);
+    }
+
+    public static PcmFile openWav(File path) throws IOException {
+        return openWav(path, DEFAULT_MAP_SIZE);
+    }
+
+    static PcmFile openWav(File path, int mapSize) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(path, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header, 0, 12);
+            if (header.getInt(0) != fourCc("RIFF") || header.getInt(8) != fourCc("WAVE"))
+                throw new IOException("Not a WAV file");
+            int sampleRate = 0, channels = 0;
+            long offset = 12, length = file.length();
+            while (offset + 8 <= length) {
+                readFully(channel, header, offset, 8);
+                int id = header.getInt(0);
+                long size = header.getInt(4) & 0xFFFFFFFFL;
+                if (id == fourCc("fmt ")) {
+                    if (size < 16)
+                        throw new IOException("Invalid WAV format chunk");
+                    readFully(channel, header, offset + 8, 16);
+                    int format = header.getShort(0) & 0xFFFF;
+                    channels = header.getShort(2) & 0xFFFF;
+                    sampleRate = header.getInt(4);
+                    int bits = header.getShort(14) & 0xFFFF;
+                    if ((format != WAVE_FORMAT_PCM && format != WAVE_FORMAT_EXTENSIBLE) ||
+                            bits != 16 || channels < 1 || sampleRate <= 0)
+                        throw new IOException("Only 16-bit PCM WAV files are supported");
+                } else if (id == fourCc("data")) {
+                    if (channels == 0)
+                        throw new IOException("WAV data before format chunk");
+                    // Streaming writers leave the size unset, the data then runs to the end
+                    long available = length - offset - 8;
+                    long dataSize = size == 0 || size == 0xFFFFFFFFL ? available :
+                            Math.min(size, available);
+                    return new PcmFile(file, sampleRate, channels, offset + 8, dataSize,
+                            mapSize);
+                }
+                offset += 8 + size + (size & 1); // Chunks are padded to even sizes
+            }
+            throw new IOException("WAV file has no data chunk");
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    private static int fourCc(String id) {
+        return id.charAt(0) | id.charAt(1) << 8 | id.charAt(2) << 16 | id.charAt(3) << 24;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset,
+                                  int length) throws IOException {
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining())
+            if (channel.read(buffer, offset + buffer.position()) < 0)
+                throw new IOException("Unexpected end of file");
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    // Sample frames, one sample of every channel each
+    public long getFrameCount() {
+        return dataSize / (2 * channels);
+    }
+
+    public double getDuration() {
+        return (double) getFrameCount() / sampleRate;
+    }
+
+    // Maps the next part of the data, null once all of it has been returned. The previous
+    // buffer should not be used any more.
+    public ShortBuffer next() throws IOException {
+        if (position >= dataSize)
+            return null;
+        long size = Math.min(mapSize, dataSize - position);
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + position,
+                size);
+        position += size;
+        return buffer.order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+    }
+
+    public void rewind() {
+        position = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
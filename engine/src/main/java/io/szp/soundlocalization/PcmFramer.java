@@ -0,0 +1,67 @@
+package io.szp.soundlocalization;
+
+import java.nio.ShortBuffer;
+
+public class PcmFramer {
+    // Full scale of int16 samples, for every conversion between PCM and float
+    static final float SHORT_MAX = 32768;
+
+    public interface FrameHandler {
+        // Returns the array to fill next, which may be the same one
+        float[] frame(float[] frame);
+    }
+
+    private final int frameLength;
+    private float[] frame;
+    private int fill;
+
+    public PcmFramer(int frameLength) {
+        this(new float[frameLength]);
+    }
+
+    public PcmFramer(float[] frame) {
+        if (frame.length == 0)
+            throw new IllegalArgumentException("Empty frame");
+        this.frameLength = frame.length;
+        this.frame = frame;
+    }
+
+    public int getFrameLength() {
+        return frameLength;
+    }
+
+    public void reset() {
+        fill = 0;
+    }
+
+    // Converts count int16 samples starting at the absolute index offset of samples
+    public void write(ShortBuffer samples, int offset, int count, FrameHandler handler) {
+        int end = offset + count;
+        while (offset < end) {
+            int n = Math.min(end - offset, frameLength - fill);
+            for (int i = 0; i < n; ++i)
+                frame[fill + i] = samples.get(offset + i) / SHORT_MAX;
+            offset += n;
+            fill += n;
+            if (fill == frameLength) {
+                frame = handler.frame(frame);
+                fill = 0;
+            }
+        }
+    }
+
+    public void write(short[] samples, int offset, int count, FrameHandler handler) {
+        int end = offset + count;
+        while (offset < end) {
+            int n = Math.min(end - offset, frameLength - fill);
+            for (int i = 0; i < n; ++i)
+                frame[fill + i] = samples[offset + i] / SHORT_MAX;
+            offset += n;
+            fill += n;
+            if (fill == frameLength) {
+                frame = handler.frame(frame);
+                fill = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.szp.soundlocalization;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class PcmLoop {
+    // A symbol converted to int16 once and repeated in a direct buffer, so a sender streams it
+    // by position only. Writes consume from the position; wrap() then moves it back by whole
+    // periods, which leaves at least minimumLength samples ahead of it.
+    private final int periodLength;
+    private final ByteBuffer buffer;
+
+    public PcmLoop(float[] symbol, float gain, int minimumLength) {
+        if (symbol.length == 0)
+            throw new IllegalArgumentException("Empty symbol");
+        periodLength = symbol.length;
+        int periods = Math.max(2, (minimumLength + periodLength - 1) / periodLength + 1);
+        buffer = ByteBuffer.allocateDirect(2 * periods * periodLength)
+                .order(ByteOrder.nativeOrder());
+        for (int i = 0; i < periodLength; ++i) {
+            int value = Math.round(symbol[i] * gain * PcmFramer.SHORT_MAX);
+            buffer.putShort(2 * i, (short) Math.max(Short.MIN_VALUE,
+                    Math.min(Short.MAX_VALUE, value)));
+        }
+        for (int period = 1; period < periods; ++period)
+            for (int i = 0; i < periodLength; ++i)
+                buffer.putShort(2 * (period * periodLength + i), buffer.getShort(2 * i));
+        buffer.clear();
+    }
+
+    public int getPeriodLength() {
+        return periodLength;
+    }
+
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    public void wrap() {
+        buffer.limit(buffer.capacity());
+        buffer.position(buffer.position() % (2 * periodLength));
+    }
+}
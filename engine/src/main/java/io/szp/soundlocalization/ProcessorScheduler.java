@@ -0,0 +1,257 @@
+package io.szp.soundlocalization;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+public class ProcessorScheduler {
+    // Fans each window out to the processors and returns once all of them are done. Processors
+    // are assigned to threads round-robin once, so every processor always runs on the same thread
+    // and sees its windows in order. The calling thread works on its own share meanwhile. An
+    // optional shared correlator transforms each window once for all processors, by default its
+    // i-th filter belongs to the i-th processor. Shared correlators are skipped while every
+    // processor using them is tracking, the last window is kept to bring them up to date again
+    // afterwards.
+    private final ReceiverProcessor[] processors;
+    private final StreamingCorrelator correlator;
+    private final int[] filterIndices;
+    private final long[] processorNanos;
+    private long correlatorNanos;
+    private final float[][] correlations;
+    private final CoarseCorrelator[] coarse;
+    private final int[] coarseIndices;
+    private final boolean[] coarseReady;
+    private final float[] previous;
+    private boolean correlatorStale;
+    private boolean coarseStale;
+    private final int threads;
+    private final Worker[] workers;
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile float[] window;
+    private volatile boolean shared;
+    private volatile boolean coarseShared;
+    private volatile boolean correlated;
+    private volatile long generation;
+    private volatile boolean running = true;
+    private volatile Thread coordinator;
+    private volatile Throwable failure;
+
+    public ProcessorScheduler(ReceiverProcessor[] processors, int threads) {
+        this(processors, null, threads);
+    }
+
+    public ProcessorScheduler(ReceiverProcessor[] processors, StreamingCorrelator correlator,
+                              int threads) {
+        this(processors, correlator, null, threads);
+    }
+
+    // Processor i uses the correlator's filter filterIndices[i], or correlates on its own when
+    // that is negative. Several processors may share a filter.
+    public ProcessorScheduler(ReceiverProcessor[] processors, StreamingCorrelator correlator,
+                              int[] filterIndices, int threads) {
+        this(processors, correlator, filterIndices, null, null, threads);
+    }
+
+    // Coarse acquisition may be shared the same way: processor i uses coarse[coarseIndices[i]]
+    // unless that is negative, in which case the correlator applies as above
+    public ProcessorScheduler(ReceiverProcessor[] processors, StreamingCorrelator correlator,
+                              int[] filterIndices, CoarseCorrelator[] coarse,
+                              int[] coarseIndices, int threads) {
+        this.processors = processors;
+        this.correlator = correlator;
+        int blockLength = 0;
+        if (correlator != null) {
+            if (filterIndices == null) {
+                if (correlator.getFilterCount() != processors.length)
+                    throw new IllegalArgumentException("Expected one filter per processor");
+                filterIndices = new int[processors.length];
+                for (int i = 0; i < filterIndices.length; ++i)
+                    filterIndices[i] = i;
+            }
+            checkIndices(filterIndices, processors.length, correlator.getFilterCount());
+            correlations = new float[correlator.getFilterCount()][correlator.getBlockLength()];
+            blockLength = correlator.getBlockLength();
+        } else {
+            correlations = null;
+        }
+        this.filterIndices = filterIndices;
+        this.coarse = coarse;
+        this.coarseIndices = coarseIndices;
+        if (coarse != null) {
+            checkIndices(coarseIndices, processors.length, coarse.length);
+            for (CoarseCorrelator coarseCorrelator: coarse) {
+                if (blockLength != 0 && coarseCorrelator.getBlockLength() != blockLength)
+                    throw new IllegalArgumentException("Mismatched block lengths");
+                blockLength = coarseCorrelator.getBlockLength();
+            }
+            coarseReady = new boolean[coarse.length];
+        } else {
+            coarseReady = null;
+        }
+        previous = blockLength != 0 ? new float[blockLength] : null;
+        processorNanos = new long[processors.length];
+        this.threads = Math.max(1, Math.min(threads, processors.length));
+        workers = new Worker[this.threads - 1];
+        for (int i = 0; i < workers.length; ++i) {
+            workers[i] = new Worker(i + 1);
+            workers[i].thread.start();
+        }
+    }
+
+    private static void checkIndices(int[] indices, int processors, int count) {
+        if (indices == null || indices.length != processors)
+            throw new IllegalArgumentException("Expected one index per processor");
+        for (int index: indices)
+            if (index >= count)
+                throw new IllegalArgumentException("Index out of range");
+    }
+
+    public static int defaultThreads(int processors) {
+        return Math.min(processors, Runtime.getRuntime().availableProcessors());
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void process(float[] window) {
+        if (!running)
+            throw new IllegalStateException("Scheduler is shut down");
+        long start = System.nanoTime();
+        if (coarse != null) {
+            boolean coarseShared = false;
+            for (int i = 0; i < processors.length; ++i)
+                coarseShared |= coarseIndices[i] >= 0 && !processors[i].isTracking();
+            if (coarseShared) {
+                for (int i = 0; i < coarse.length; ++i) {
+                    if (coarseStale) {
+                        coarse[i].reset();
+                        coarse[i].process(previous);
+                    }
+                    coarseReady[i] = coarse[i].process(window);
+                }
+                coarseStale = false;
+            } else {
+                coarseStale = true;
+            }
+            this.coarseShared = coarseShared;
+        }
+        if (correlator != null) {
+            boolean shared = false;
+            for (int i = 0; i < processors.length; ++i)
+                shared |= filterIndices[i] >= 0 && !processors[i].isTracking() &&
+                        (coarseIndices == null || coarseIndices[i] < 0);
+            if (shared) {
+                if (correlatorStale) {
+                    correlator.reset();
+                    correlator.process(previous, correlations);
+                    correlatorStale = false;
+                }
+                correlated = correlator.process(window, correlations);
+            } else {
+                correlatorStale = true;
+            }
+            this.shared = shared;
+        }
+        if (previous != null) {
+            System.arraycopy(window, 0, previous, 0, previous.length);
+            correlatorNanos += System.nanoTime() - start;
+        }
+        this.window = window;
+        if (workers.length != 0) {
+            coordinator = Thread.currentThread();
+            pending.set(workers.length);
+            ++generation;
+            for (Worker worker: workers)
+                LockSupport.unpark(worker.thread);
+        }
+        runShare(0, window);
+        while (pending.get() != 0)
+            LockSupport.park(this);
+        Throwable throwable = failure;
+        if (throwable != null) {
+            failure = null;
+            throw new RuntimeException("Processor failed", throwable);
+        }
+    }
+
+    // Time spent in the i-th processor and in the shared correlators, only valid between calls to
+    // process()
+    public long getProcessorNanos(int i) {
+        return processorNanos[i];
+    }
+
+    public long getCorrelatorNanos() {
+        return correlatorNanos;
+    }
+
+    // Whether no processor holds a lock, only valid between calls to process()
+    public boolean isIdle() {
+        for (ReceiverProcessor processor: processors)
+            if (processor.isStarted())
+                return false;
+        return true;
+    }
+
+    public void reset() {
+        if (correlator != null)
+            correlator.reset();
+        if (coarse != null)
+            for (CoarseCorrelator coarseCorrelator: coarse)
+                coarseCorrelator.reset();
+        correlatorStale = false;
+        coarseStale = false;
+        for (ReceiverProcessor processor: processors)
+            processor.reset();
+    }
+
+    public void shutdown() {
+        running = false;
+        for (Worker worker: workers)
+            LockSupport.unpark(worker.thread);
+    }
+
+    private void runShare(int share, float[] window) {
+        for (int i = share; i < processors.length; i += threads) {
+            long start = System.nanoTime();
+            if (coarseShared && coarseIndices[i] >= 0)
+                processors[i].processWindow(window, coarse[coarseIndices[i]],
+                        coarseReady[coarseIndices[i]]);
+            else if (correlator == null || !shared || filterIndices[i] < 0)
+                processors[i].processWindow(window);
+            else
+                processors[i].processWindow(window,
+                        correlated ? correlations[filterIndices[i]] : null);
+            processorNanos[i] += System.nanoTime() - start;
+        }
+    }
+
+    private class Worker implements Runnable {
+        private final int share;
+        private final Thread thread;
+
+        private Worker(int share) {
+            this.share = share;
+            thread = new Thread(this, "Processor Worker " + share);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long seen = 0;
+            while (true) {
+                while (running && generation == seen)
+                    LockSupport.park(this);
+                if (!running)
+                    return;
+                seen = generation;
+                try {
+                    runShare(share, window);
+                } catch (Throwable throwable) {
+                    failure = throwable;
+                }
+                if (pending.decrementAndGet() == 0)
+                    LockSupport.unpark(coordinator);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package io.szp.soundlocalization;
+
+import java.lang.reflect.Field;
+
+public class RangingConfig implements Cloneable {
+    // Defaults match the app's default preferences
+    public int samplingRate = 44100;
+    public float cycleTime = 0.04f;
+    public float startFreq1 = 4000;
+    public float endFreq1 = 8000;
+    public float startFreq2 = 8000;
+    public float endFreq2 = 4000;
+    public boolean twoDimensionEnabled = false;
+    // 2D positions place the first sender at x = senderOffset and the second one at x =
+    // -senderOffset, in meters
+    public float senderOffset = 0.5f;
+    public float startIntensityThreshold = 6;
+    public float startIndexStdLimit = 50;
+    public float endIntensityThreshold = 6;
+    public float endIndexStdLimit = 200;
+    public int bufferLength = 6;
+    public int fftLength = 1764;
+    public float searchFraction = 0.1f;
+    public boolean trackingEnabled = true;
+    // Opt-in coarse acquisition above 1. The decimated intensity is only scaled to approximate
+    // the full-rate one, while the intensity thresholds were tuned at the full rate, so it may
+    // lock and drop differently near them. In 2D each processor then also correlates its own
+    // decimated windows instead of sharing one transform of the input.
+    public int acquisitionDecimation = 1;
+    public boolean basebandEnabled = false;
+    // Off until the gate's scores have been calibrated on device recordings
+    public boolean energyGateEnabled = false;
+    // Processing threads, 0 for one per processor up to the number of cores
+    public int threads = 0;
+
+    // Samples per cycle at the full rate, the length of the frames fed to the engine
+    public int symbolLength() {
+        return Math.round(cycleTime * samplingRate);
+    }
+
+    // The full-rate chirp of the first or second receiver, shared and read-only
+    public float[] symbol(int receiverIndex) {
+        if (receiverIndex == 1)
+            return SignalProcessing.cachedChirp(startFreq1, endFreq1, symbolLength(),
+                    samplingRate, 0);
+        if (receiverIndex == 2)
+            return SignalProcessing.cachedChirp(startFreq2, endFreq2, symbolLength(),
+                    samplingRate, 0);
+        throw new IllegalArgumentException("Unknown receiver");
+    }
+
+    public RangingConfig copy() {
+        try {
+            return (RangingConfig) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    // Sets a field by name from its string form, for command line tools
+    public void set(String name, String value) {
+        try {
+            Field field = RangingConfig.class.getField(name);
+            Class<?> type = field.getType();
+            if (type == int.class) {
+                field.setInt(this, Integer.parseInt(value));
+            } else if (type == float.class) {
+                field.setFloat(this, Float.parseFloat(value));
+            } else if (type == boolean.class) {
+                if (!value.equals("true") && !value.equals("false"))
+                    throw new IllegalArgumentException("Expected true or false for " + name);
+                field.setBoolean(this, value.equals("true"));
+            } else {
+                throw new IllegalArgumentException("Unsupported setting " + name);
+            }
+        } catch (NoSuchFieldException e) {
+            throw new IllegalArgumentException("Unknown setting " + name);
+        } catch (IllegalAccessException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
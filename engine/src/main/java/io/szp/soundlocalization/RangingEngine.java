@@ -0,0 +1,284 @@
+package io.szp.soundlocalization;
+
+import java.nio.ShortBuffer;
+
+public class RangingEngine {
+    // The receiver pipeline without any platform code. Full-rate frames of getFrameLength()
+    // samples go in, through the optional energy gate and baseband front end, to one processor
+    // per sender; ranges, 2D positions, lock and gate changes come out through the listener.
+    // process() and writePcm() must be called from a single thread.
+    private static final float SPEED_OF_SOUND = 340;
+    private static final int TRACKING_HALF_WIDTH = 8;
+    private static final float TRACKING_RATIO = 0.5f;
+    private static final int BASEBAND_MAX_DECIMATION = 8;
+
+    private final RangingListener listener;
+    private final float cycleTime;
+    private final float senderOffset;
+    private final int frameLength;
+    private final float processingRate;
+    private final BasebandFrontEnd frontEnd;
+    private final EnergyGate gate;
+    private final ProcessorScheduler scheduler;
+    private final float[] window;
+    private final PcmFramer framer;
+    private final PcmFramer.FrameHandler frameHandler;
+    private boolean gated;
+    // Written before the processors run, so listeners may read it
+    private long frameCount;
+
+    private Float recentPosition1;
+    private Float recentPosition2;
+
+    public RangingEngine(RangingConfig config, RangingListener listener) {
+        this.listener = listener;
+        cycleTime = config.cycleTime;
+        senderOffset = config.senderOffset;
+        int rate = config.samplingRate;
+        frameLength = config.symbolLength();
+        float low = lowFrequency(config), high = highFrequency(config);
+        gate = config.energyGateEnabled && bandValid(config) &&
+                frameLength >= EnergyGate.MIN_BLOCK_LENGTH ? new EnergyGate(low / rate,
+                high / rate, frameLength) : null;
+        frontEnd = frontEnd(config);
+        if (frontEnd != null) {
+            processingRate = frontEnd.getOutputRate();
+            window = new float[frontEnd.getOutputLength()];
+        } else {
+            processingRate = rate;
+            window = null;
+        }
+        float[] symbol1 = symbol(config, frontEnd, 1), symbol2 = symbol(config, frontEnd, 2);
+        MatchedFilter filter1 = new MatchedFilter(symbol1, symbol1.length);
+        MatchedFilter filter2 = new MatchedFilter(symbol2, symbol2.length);
+        ReceiverParameter parameter = parameter(config, frontEnd);
+        ReceiverProcessor[] processors =
+                new ReceiverProcessor[config.twoDimensionEnabled ? 2 : 1];
+        processors[0] = new ReceiverProcessor(1, parameter, symbol1, filter1,
+                new Receiver(1, sweep(config, 1)));
+        if (config.twoDimensionEnabled)
+            processors[1] = new ReceiverProcessor(2, parameter, symbol2, filter2,
+                    new Receiver(2, sweep(config, 2)));
+        // Both processors see the same windows, so the input is transformed only once. With
+        // coarse acquisition every processor correlates at its own decimated rate instead.
+        StreamingCorrelator correlator = null;
+        if (config.acquisitionDecimation <= 1) {
+            MatchedFilter[] filters = config.twoDimensionEnabled ?
+                    new MatchedFilter[]{filter1, filter2} : new MatchedFilter[]{filter1};
+            correlator = new StreamingCorrelator(filters);
+        }
+        int threads = config.threads > 0 ? config.threads :
+                ProcessorScheduler.defaultThreads(processors.length);
+        scheduler = new ProcessorScheduler(processors, correlator, threads);
+        framer = new PcmFramer(frameLength);
+        frameHandler = new PcmFramer.FrameHandler() {
+            @Override
+            public float[] frame(float[] frame) {
+                process(frame);
+                return frame;
+            }
+        };
+    }
+
+    private static float lowFrequency(RangingConfig config) {
+        return Math.min(Math.min(config.startFreq1, config.endFreq1),
+                Math.min(config.startFreq2, config.endFreq2));
+    }
+
+    private static float highFrequency(RangingConfig config) {
+        return Math.max(Math.max(config.startFreq1, config.endFreq1),
+                Math.max(config.startFreq2, config.endFreq2));
+    }
+
+    private static boolean bandValid(RangingConfig config) {
+        float low = lowFrequency(config), high = highFrequency(config);
+        return low >= 0 && high > low && high <= config.samplingRate / 2.0f;
+    }
+
+    // The front end config asks for, null when it is off or the band is too wide to decimate
+    static BasebandFrontEnd frontEnd(RangingConfig config) {
+        if (!config.basebandEnabled || !bandValid(config))
+            return null;
+        BasebandFrontEnd frontEnd = new BasebandFrontEnd(config.samplingRate,
+                lowFrequency(config), highFrequency(config), BASEBAND_MAX_DECIMATION,
+                config.symbolLength());
+        return frontEnd.getDecimation() < 2 ? null : frontEnd;
+    }
+
+    // The receiver's symbol at the rate the processors run at
+    static float[] symbol(RangingConfig config, BasebandFrontEnd frontEnd, int receiverIndex) {
+        if (frontEnd == null)
+            return config.symbol(receiverIndex);
+        // The chirps keep their sweep and duration, only moved to the decimated band
+        float start = receiverIndex == 1 ? config.startFreq1 : config.startFreq2;
+        float end = receiverIndex == 1 ? config.endFreq1 : config.endFreq2;
+        return SignalProcessing.cachedChirp(frontEnd.mapFrequency(start),
+                frontEnd.mapFrequency(end), frontEnd.getOutputLength(),
+                frontEnd.getOutputRate(), 0);
+    }
+
+    static ReceiverParameter parameter(RangingConfig config, BasebandFrontEnd frontEnd) {
+        int decimation = frontEnd != null ? frontEnd.getDecimation() : 1;
+        // Lengths in samples shrink with the rate, the searched beat band stays the same in Hz
+        ReceiverParameter parameter = new ReceiverParameter();
+        parameter.symbolLength = frontEnd != null ? frontEnd.getOutputLength() :
+                config.symbolLength();
+        parameter.bufferLength = config.bufferLength;
+        parameter.fftLength = config.fftLength / decimation;
+        parameter.searchFraction = Math.min(config.searchFraction * decimation, 0.5f);
+        parameter.trackingEnabled = config.trackingEnabled;
+        parameter.trackingHalfWidth = Math.max(TRACKING_HALF_WIDTH / decimation, 2);
+        parameter.trackingRatio = TRACKING_RATIO;
+        parameter.acquisitionDecimation = config.acquisitionDecimation;
+        parameter.startIntensityThreshold = config.startIntensityThreshold;
+        parameter.startIndexStdLimit = config.startIndexStdLimit / decimation;
+        parameter.endIntensityThreshold = config.endIntensityThreshold;
+        parameter.endIndexStdLimit = config.endIndexStdLimit / decimation;
+        return parameter;
+    }
+
+    static float sweep(RangingConfig config, int receiverIndex) {
+        return receiverIndex == 1 ? Math.abs(config.endFreq1 - config.startFreq1) :
+                Math.abs(config.endFreq2 - config.startFreq2);
+    }
+
+    // Distance from the dechirped beat frequency bin, result out of length bins
+    static float range(float result, int length, float processingRate, float cycleTime,
+                       float sweep) {
+        return result * processingRate / length * SPEED_OF_SOUND * cycleTime / sweep;
+    }
+
+    // Lag in samples the processor expects the symbol to start at for a given range
+    static int lag(float range, float processingRate) {
+        return Math.round(range / SPEED_OF_SOUND * processingRate);
+    }
+
+    // Full-rate samples per frame
+    public int getFrameLength() {
+        return frameLength;
+    }
+
+    // Rate the processors run at, lower than the input's with the baseband front end
+    public float getProcessingRate() {
+        return processingRate;
+    }
+
+    public boolean isBasebandEnabled() {
+        return frontEnd != null;
+    }
+
+    // Frames passed to process() so far, including the one being processed
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public void process(float[] frame) {
+        if (frame.length != frameLength)
+            throw new IllegalArgumentException("Mismatched frame length");
+        ++frameCount;
+        // Frames in which the gate sees no chirp are dropped before any correlation unless a
+        // processor holds a lock, and count as a gap once processing resumes
+        if (gate != null && scheduler.isIdle() && !gate.process(frame)) {
+            if (!gated) {
+                gated = true;
+                resetPipeline();
+                listener.gate(false, gate.getScore(), gate.getGatedCount(),
+                        gate.getCheckedCount());
+            }
+            return;
+        }
+        if (gated) {
+            gated = false;
+            listener.gate(true, gate.getScore(), gate.getGatedCount(),
+                    gate.getCheckedCount());
+        }
+        if (frontEnd != null) {
+            frontEnd.process(frame, window);
+            scheduler.process(window);
+        } else {
+            scheduler.process(frame);
+        }
+    }
+
+    // Mono int16 PCM in any chunk size, split into frames internally
+    public void writePcm(short[] samples, int offset, int count) {
+        framer.write(samples, offset, count, frameHandler);
+    }
+
+    // Same for samples at absolute indices of a buffer, e.g. a mapped file
+    public void writePcm(ShortBuffer samples, int offset, int count) {
+        framer.write(samples, offset, count, frameHandler);
+    }
+
+    // Drops all history, used when the input has a gap
+    public void reset() {
+        framer.reset();
+        if (gate != null)
+            gate.reset();
+        resetPipeline();
+    }
+
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    private void resetPipeline() {
+        scheduler.reset();
+        if (frontEnd != null)
+            frontEnd.reset();
+    }
+
+    private synchronized void setRecentPosition(int receiverIndex, float position) {
+        if (receiverIndex == 1)
+            recentPosition1 = position;
+        else
+            recentPosition2 = position;
+        if (recentPosition1 == null || recentPosition2 == null)
+            return;
+        float p1 = recentPosition1, p2 = recentPosition2;
+        float d = senderOffset;
+        float x = (p2 * p2 - p1 * p1) / (4 * d);
+        float base = -(float) Math.pow(p1, 4) - (float) Math.pow(p2, 4)
+                + 8 * d * d * (p1 * p1 + p2 * p2) + 2 * (p1 * p1 * p2 * p2)
+                - 16 * (float) Math.pow(d, 4);
+        float y = 0;
+        if (base > 0)
+            y = (float) Math.sqrt(base) / (4 * d);
+        recentPosition1 = null;
+        recentPosition2 = null;
+        listener.position(x, y);
+    }
+
+    private class Receiver implements ReceiverProcessorHandler {
+        private final int receiverIndex;
+        private final float sweep;
+
+        private Receiver(int receiverIndex, float sweep) {
+            this.receiverIndex = receiverIndex;
+            this.sweep = sweep;
+        }
+
+        @Override
+        public int handle(float result, int length) {
+            float position = range(result, length, processingRate, cycleTime, sweep);
+            listener.range(receiverIndex, position);
+            setRecentPosition(receiverIndex, position);
+            return lag(position, processingRate);
+        }
+
+        @Override
+        public void started(int receiverIndex, float intensity, float indexStd) {
+            listener.started(receiverIndex, intensity, indexStd);
+        }
+
+        @Override
+        public void stopped(int receiverIndex, float intensity, float indexStd) {
+            listener.stopped(receiverIndex, intensity, indexStd);
+        }
+
+        @Override
+        public void window(float[] prevWindow, float[] curWindow) {
+            listener.window(prevWindow, curWindow);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package io.szp.soundlocalization;
+
+public interface RangingListener {
+    // Called from the processing threads, possibly several at once
+
+    // Distance to the given sender in meters, up to a constant offset
+    void range(int receiverIndex, float position);
+
+    // Both senders reported a range since the last position
+    void position(float x, float y);
+
+    void started(int receiverIndex, float intensity, float indexStd);
+
+    void stopped(int receiverIndex, float intensity, float indexStd);
+
+    // The energy gate started or stopped dropping frames
+    void gate(boolean open, float score, long gatedCount, long checkedCount);
+
+    // The arrays are reused by the engine and must not be kept
+    void window(float[] prevWindow, float[] curWindow);
+}
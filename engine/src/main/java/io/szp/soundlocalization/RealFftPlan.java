@@ -0,0 +1,128 @@
+package io.szp.soundlocalization;
+
+import java.util.Arrays;
+
+public class RealFftPlan {
+    // A length-n real signal is packed into an n/2 complex FFT, the spectrum is stored as the
+    // n/2 + 1 non-negative frequency bins. Cached like FftPlan.
+    private static final Object lock = new Object();
+    private static volatile RealFftPlan[] plans = new RealFftPlan[0];
+
+    public static RealFftPlan get(int n) {
+        for (RealFftPlan plan: plans) {
+            if (plan.n == n)
+                return plan;
+        }
+        if (n < 2 || n % 2 != 0)
+            throw new IllegalArgumentException("Length is not a positive even number");
+        synchronized (lock) {
+            RealFftPlan[] current = plans;
+            for (RealFftPlan plan: current) {
+                if (plan.n == n)
+                    return plan;
+            }
+            RealFftPlan plan = new RealFftPlan(n);
+            RealFftPlan[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = plan;
+            plans = updated;
+            return plan;
+        }
+    }
+
+    private final int n;
+    private final FftPlan halfPlan;
+    private final float[] cosTable;
+    private final float[] sinTable;
+
+    private RealFftPlan(int n) {
+        this.n = n;
+        int half = n / 2;
+        halfPlan = FftPlan.get(half);
+        cosTable = new float[half / 2 + 1];
+        sinTable = new float[half / 2 + 1];
+        for (int i = 0; i < cosTable.length; i++) {
+            cosTable[i] = (float) Math.cos(2 * Math.PI * i / n);
+            sinTable[i] = (float) Math.sin(2 * Math.PI * i / n);
+        }
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public int spectrumSize() {
+        return n / 2 + 1;
+    }
+
+    // Input shorter than n is zero-padded
+    public void forward(float[] input, float[] real, float[] imag) {
+        int half = n / 2;
+        if (input.length > n || real.length < half + 1 || imag.length < half + 1)
+            throw new IllegalArgumentException("Mismatched lengths");
+
+        // Pack even samples into the real part and odd samples into the imaginary part
+        int pairs = input.length / 2;
+        for (int i = 0; i < pairs; i++) {
+            real[i] = input[2 * i];
+            imag[i] = input[2 * i + 1];
+        }
+        if (pairs < half && input.length % 2 != 0) {
+            real[pairs] = input[input.length - 1];
+            imag[pairs] = 0;
+            ++pairs;
+        }
+        for (int i = pairs; i < half; i++) {
+            real[i] = 0;
+            imag[i] = 0;
+        }
+        halfPlan.forward(real, imag);
+
+        // Split the packed spectrum into the spectra of the even and odd samples and combine
+        float z0Real = real[0], z0Imag = imag[0];
+        real[0] = z0Real + z0Imag;
+        imag[0] = 0;
+        real[half] = z0Real - z0Imag;
+        imag[half] = 0;
+        for (int k = 1, j = half - 1; k <= j; k++, j--) {
+            float evenReal = (real[k] + real[j]) / 2, evenImag = (imag[k] - imag[j]) / 2;
+            float oddReal = (imag[k] + imag[j]) / 2, oddImag = (real[j] - real[k]) / 2;
+            float tr = oddReal * cosTable[k] + oddImag * sinTable[k];
+            float ti = oddImag * cosTable[k] - oddReal * sinTable[k];
+            real[k] = evenReal + tr;
+            imag[k] = evenImag + ti;
+            real[j] = evenReal - tr;
+            imag[j] = ti - evenImag;
+        }
+    }
+
+    // The spectrum arrays are used as scratch space and are overwritten
+    public void inverse(float[] real, float[] imag, float[] output) {
+        int half = n / 2;
+        if (output.length > n || real.length < half + 1 || imag.length < half + 1)
+            throw new IllegalArgumentException("Mismatched lengths");
+
+        // Rebuild the packed spectrum
+        for (int k = 0, j = half; k <= j; k++, j--) {
+            float evenReal = (real[k] + real[j]) / 2, evenImag = (imag[k] - imag[j]) / 2;
+            float diffReal = (real[k] - real[j]) / 2, diffImag = (imag[k] + imag[j]) / 2;
+            float oddReal = diffReal * cosTable[k] - diffImag * sinTable[k];
+            float oddImag = diffReal * sinTable[k] + diffImag * cosTable[k];
+            real[k] = evenReal - oddImag;
+            imag[k] = evenImag + oddReal;
+            if (j != half) {
+                real[j] = evenReal + oddImag;
+                imag[j] = oddReal - evenImag;
+            }
+        }
+        halfPlan.inverse(real, imag);
+
+        // Unpack
+        int pairs = output.length / 2;
+        for (int i = 0; i < pairs; i++) {
+            output[2 * i] = real[i];
+            output[2 * i + 1] = imag[i];
+        }
+        if (output.length % 2 != 0)
+            output[output.length - 1] = real[pairs];
+    }
+}
@@ -0,0 +1,16 @@
+package io.szp.soundlocalization;
+
+public class ReceiverParameter {
+    public int symbolLength;
+    public int bufferLength;
+    public int fftLength;
+    public float searchFraction;
+    public float startIntensityThreshold;
+    public float startIndexStdLimit;
+    public float endIntensityThreshold;
+    public float endIndexStdLimit;
+    public boolean trackingEnabled;
+    public int trackingHalfWidth;
+    public float trackingRatio;
+    public int acquisitionDecimation;
+}
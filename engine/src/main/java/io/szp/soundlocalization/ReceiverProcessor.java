@@ -0,0 +1,318 @@
+package io.szp.soundlocalization;
+
+public class ReceiverProcessor {
+    private final int receiverIndex;
+    private final ReceiverProcessorHandler handler;
+
+    private ReceiverParameter parameter;
+    private float[] symbol;
+    private StreamingCorrelator correlator;
+    private CoarseCorrelator coarseCorrelator;
+    private ZoomSpectrum dechirpSpectrum;
+
+    // Workspaces, sized in updateParameter() and reused for every window
+    private float[] prevWindow;
+    private float[] cor;
+    private SlidingWindow intensitiesBuffer;
+    private SlidingWindow indicesBuffer;
+    private FloatRingBuffer signalBuffer;
+    private float[] dechirped;
+    private float[] spectrum;
+
+    private boolean started;
+    private int paddingOffset;
+
+    // Tracking: while locked only lags around the last peak are correlated, in the time domain.
+    // The lock is kept as long as the peak stays inside that range and its normalised
+    // correlation does not fall below a fraction of the one seen when tracking began.
+    private float symbolEnergy;
+    private boolean tracking;
+    private int trackingIndex;
+    private float trackingCoefficient;
+    private int acquiredWindows;
+    private boolean correlatorStale;
+
+    public ReceiverProcessor(int receiverIndex, ReceiverParameter parameter, float[] symbol,
+                             MatchedFilter matchedFilter, ReceiverProcessorHandler handler) {
+        this.receiverIndex = receiverIndex;
+        this.handler = handler;
+        updateParameter(parameter, symbol, matchedFilter);
+    }
+
+    public void updateParameter(ReceiverParameter parameter, float[] symbol,
+                                MatchedFilter matchedFilter) {
+        int symbolLength = parameter.symbolLength;
+        if (symbol.length != symbolLength || matchedFilter.getInputLength() != symbolLength)
+            throw new IllegalArgumentException("Mismatched symbol length");
+        this.parameter = parameter;
+        this.symbol = symbol;
+        correlator = new StreamingCorrelator(matchedFilter);
+        coarseCorrelator = null;
+        if (parameter.acquisitionDecimation > 1) {
+            coarseCorrelator = new CoarseCorrelator(symbol, parameter.acquisitionDecimation);
+            if (coarseCorrelator.getDecimation() < 2) // The band is too wide to decimate
+                coarseCorrelator = null;
+        }
+        int length = Math.max(symbolLength, parameter.fftLength);
+        if (length % 2 != 0) // Real FFT needs an even length
+            ++length;
+        // Only the beat frequencies of the searched range are computed
+        int bins = Math.max(1, Math.min((int) (length * parameter.searchFraction),
+                length / 2 + 1));
+        dechirpSpectrum = new ZoomSpectrum(symbolLength, length, 0, bins);
+        prevWindow = new float[symbolLength];
+        cor = new float[symbolLength];
+        intensitiesBuffer = new SlidingWindow(parameter.bufferLength);
+        indicesBuffer = new SlidingWindow(parameter.bufferLength);
+        signalBuffer = new FloatRingBuffer(symbolLength * 2);
+        dechirped = new float[symbolLength];
+        spectrum = new float[bins];
+        started = false;
+        paddingOffset = 65;
+        symbolEnergy = 0;
+        for (float value: symbol)
+            symbolEnergy += value * value;
+        tracking = false;
+        acquiredWindows = 0;
+        correlatorStale = false;
+    }
+
+    // Drops all history, used when the input has a gap
+    public void reset() {
+        correlator.reset();
+        if (coarseCorrelator != null)
+            coarseCorrelator.reset();
+        correlatorStale = false;
+        tracking = false;
+        acquiredWindows = 0;
+        intensitiesBuffer.clear();
+        indicesBuffer.clear();
+        signalBuffer.clear();
+        if (started) {
+            started = false;
+            handler.stopped(receiverIndex, 0, 0);
+        }
+    }
+
+    public int getReceiverIndex() {
+        return receiverIndex;
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+
+    // While tracking, processWindow(float[]) usually skips the full correlation
+    public boolean isTracking() {
+        return tracking;
+    }
+
+    public void processWindow(float[] curWindow) {
+        if (tracking && keepTracking(curWindow))
+            return;
+        if (coarseCorrelator != null) {
+            if (correlatorStale) {
+                // The correlator missed the previous window, feed it again
+                coarseCorrelator.reset();
+                coarseCorrelator.process(prevWindow);
+                correlatorStale = false;
+            }
+            if (coarseCorrelator.process(curWindow))
+                refine(curWindow, coarseCorrelator);
+            else
+                System.arraycopy(curWindow, 0, prevWindow, 0, parameter.symbolLength);
+            return;
+        }
+        if (correlatorStale) {
+            correlator.reset();
+            correlator.process(prevWindow, cor);
+            correlatorStale = false;
+        }
+        acquire(curWindow, correlator.process(curWindow, cor) ? cor : null);
+    }
+
+    // Takes the correlation of [previous window, curWindow] computed elsewhere, e.g. by a
+    // correlator shared between processors, or null while there is no previous window yet. It
+    // is only used when not tracking or once the peak is lost.
+    public void processWindow(float[] curWindow, float[] cor) {
+        correlatorStale = true;
+        if (tracking && keepTracking(curWindow))
+            return;
+        acquire(curWindow, cor);
+    }
+
+    // Same with coarse acquisition shared between processors: coarse has just been given
+    // curWindow and returned ready. It has to be built from this processor's symbol.
+    public void processWindow(float[] curWindow, CoarseCorrelator coarse, boolean ready) {
+        correlatorStale = true;
+        if (tracking && keepTracking(curWindow))
+            return;
+        if (ready)
+            refine(curWindow, coarse);
+        else
+            System.arraycopy(curWindow, 0, prevWindow, 0, parameter.symbolLength);
+    }
+
+    private boolean keepTracking(float[] curWindow) {
+        if (track(curWindow)) {
+            appendSignal();
+            handler.window(prevWindow, curWindow);
+            System.arraycopy(curWindow, 0, prevWindow, 0, parameter.symbolLength);
+            return true;
+        }
+        // Lost the peak, fall back to full acquisition from this window on. The correlators
+        // last saw a window from before tracking began.
+        tracking = false;
+        acquiredWindows = 0;
+        correlatorStale = true;
+        return false;
+    }
+
+    private void acquire(float[] curWindow, float[] cor) {
+        int symbolLength = parameter.symbolLength;
+        if (cor == null) {
+            System.arraycopy(curWindow, 0, prevWindow, 0, symbolLength);
+            return;
+        }
+        if (cor.length != symbolLength)
+            throw new IllegalArgumentException("Mismatched correlation length");
+        int index = MathUtils.argmax(cor);
+        lock(curWindow, index, cor[index] / MathUtils.meanAbs(cor), cor[index]);
+    }
+
+    // Second stage of coarse acquisition: the full-rate lags around the coarse peak
+    private void refine(float[] curWindow, CoarseCorrelator coarse) {
+        int symbolLength = parameter.symbolLength;
+        int coarseIndex = coarse.getIndex();
+        int decimation = coarse.getDecimation();
+        int from = Math.max(0, coarseIndex - decimation);
+        int to = Math.min(symbolLength - 1, coarseIndex + decimation);
+        int index = from;
+        float max = Float.NEGATIVE_INFINITY;
+        for (int lag = from; lag <= to; ++lag) {
+            float value = correlate(curWindow, lag);
+            if (value > max) {
+                max = value;
+                index = lag;
+            }
+        }
+        lock(curWindow, index, coarse.getIntensity(), max);
+    }
+
+    // Updates the lock statistics with the window's peak and acts on them
+    private void lock(float[] curWindow, int index, float intensity, float peak) {
+        int symbolLength = parameter.symbolLength;
+        ++acquiredWindows;
+        intensitiesBuffer.add(intensity);
+        indicesBuffer.add(index);
+        if (intensitiesBuffer.isFull() && indicesBuffer.isFull()) {
+            float meanIntensitiesBuffer = intensitiesBuffer.mean();
+            float meanIndicesBuffer = indicesBuffer.mean();
+            float stdIndicesBuffer = indicesBuffer.std();
+            boolean skipSignalBuffer = false;
+            if (!started) {
+                if (meanIntensitiesBuffer > parameter.startIntensityThreshold &&
+                        stdIndicesBuffer <= parameter.startIndexStdLimit) {
+                    started = true;
+                    handler.started(receiverIndex, meanIntensitiesBuffer, stdIndicesBuffer);
+                    int indexOffset = Math.round(meanIndicesBuffer);
+                    indexOffset -= paddingOffset;
+                    if (indexOffset < 0)
+                        indexOffset += symbolLength;
+                    signalBuffer.clear();
+                    signalBuffer.write(prevWindow, indexOffset, symbolLength - indexOffset);
+                    skipSignalBuffer = true;
+                }
+            } else {
+                if (meanIntensitiesBuffer <= parameter.endIntensityThreshold ||
+                        stdIndicesBuffer > parameter.endIndexStdLimit) {
+                    started = false;
+                    tracking = false;
+                    handler.stopped(receiverIndex, meanIntensitiesBuffer, stdIndicesBuffer);
+                    signalBuffer.clear();
+                }
+            }
+            if (started && !skipSignalBuffer) {
+                appendSignal();
+                // Only track once the whole lock history comes from full correlations
+                if (parameter.trackingEnabled && acquiredWindows >= parameter.bufferLength &&
+                        stdIndicesBuffer <= parameter.startIndexStdLimit) {
+                    float coefficient = coefficient(curWindow, index, peak);
+                    if (coefficient > 0) {
+                        tracking = true;
+                        trackingIndex = index;
+                        trackingCoefficient = coefficient;
+                    }
+                }
+            }
+        }
+        handler.window(prevWindow, curWindow);
+        System.arraycopy(curWindow, 0, prevWindow, 0, symbolLength);
+    }
+
+    private boolean track(float[] curWindow) {
+        int symbolLength = parameter.symbolLength, width = parameter.trackingHalfWidth;
+        int from = Math.max(0, trackingIndex - width);
+        int to = Math.min(symbolLength - 1, trackingIndex + width);
+        int index = from;
+        float max = Float.NEGATIVE_INFINITY;
+        for (int lag = from; lag <= to; ++lag) {
+            float value = correlate(curWindow, lag);
+            if (value > max) {
+                max = value;
+                index = lag;
+            }
+        }
+        // A peak on the border may really lie outside the range
+        if (index == from || index == to)
+            return false;
+        if (coefficient(curWindow, index, max) < parameter.trackingRatio * trackingCoefficient)
+            return false;
+        trackingIndex = index;
+        return true;
+    }
+
+    // Correlation of [prevWindow, curWindow] with the symbol at a single lag
+    private float correlate(float[] curWindow, int lag) {
+        int symbolLength = parameter.symbolLength, split = symbolLength - lag;
+        float sum = 0;
+        for (int i = 0; i < split; ++i)
+            sum += prevWindow[lag + i] * symbol[i];
+        for (int i = split; i < symbolLength; ++i)
+            sum += curWindow[i - split] * symbol[i];
+        return sum;
+    }
+
+    // Normalised correlation coefficient of the symbol and the samples at the given lag
+    private float coefficient(float[] curWindow, int lag, float correlation) {
+        int symbolLength = parameter.symbolLength;
+        float energy = 0;
+        for (int i = lag; i < symbolLength; ++i)
+            energy += prevWindow[i] * prevWindow[i];
+        for (int i = 0; i < lag; ++i)
+            energy += curWindow[i] * curWindow[i];
+        if (energy <= 0 || symbolEnergy <= 0)
+            return 0;
+        return correlation / (float) Math.sqrt(energy * symbolEnergy);
+    }
+
+    private void appendSignal() {
+        int symbolLength = parameter.symbolLength;
+        signalBuffer.write(prevWindow, 0, symbolLength);
+        while (signalBuffer.size() > symbolLength) {
+            dechirp(signalBuffer.array(), signalBuffer.readOffset());
+            signalBuffer.discard(symbolLength);
+        }
+    }
+
+    private void dechirp(float[] signal, int offset) {
+        int symbolLength = parameter.symbolLength;
+        for (int i = 0; i < symbolLength; ++i)
+            dechirped[i] = signal[offset + i] * symbol[i];
+        // Squared magnitudes have the same argmax
+        dechirpSpectrum.power(dechirped, spectrum);
+        int maxIndex = MathUtils.argmax(spectrum);
+        paddingOffset = handler.handle(dechirpSpectrum.interpolate(maxIndex),
+                dechirpSpectrum.size());
+    }
+}
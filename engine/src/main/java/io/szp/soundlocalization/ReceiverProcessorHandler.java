@@ -0,0 +1,14 @@
+package io.szp.soundlocalization;
+
+public interface ReceiverProcessorHandler {
+    // result is the beat frequency as a fractional bin of a length-point spectrum. Returns the
+    // padding offset in samples used to align the next lock.
+    int handle(float result, int length);
+
+    void started(int receiverIndex, float intensity, float indexStd);
+
+    void stopped(int receiverIndex, float intensity, float indexStd);
+
+    // The arrays are reused by the processor and must not be kept
+    void window(float[] prevWindow, float[] curWindow);
+}
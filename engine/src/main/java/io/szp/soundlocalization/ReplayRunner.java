@@ -0,0 +1,216 @@
+package io.szp.soundlocalization;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+public class ReplayRunner {
+    // Runs a recording through the same engine as the app, as fast as the CPU allows. Events are
+    // written as tab-separated lines: the time in seconds at the end of the frame that produced
+    // them, the event name and its values. Only the first channel is used.
+    private static final int CHUNK_FRAMES = 4096;
+    // Meters per bin of the range histogram
+    public static final float HISTOGRAM_BIN = 0.05f;
+    private static final String USAGE = "Usage: ReplayRunner [--raw RATE] [--set NAME=VALUE]... " +
+            "INPUT OUTPUT\n  INPUT is a 16-bit PCM WAV file, or raw little-endian mono " +
+            "int16 with --raw\n  NAME is any public field of RangingConfig";
+
+    public static class Report {
+        public long frames;
+        public double audioSeconds;
+        public double elapsedSeconds;
+        public long ranges;
+        public long positions;
+        public long starts;
+        // Audio time of the first lock, NaN if there was none
+        public double lockTime = Double.NaN;
+        // Ranges counted per bin, bin i holding [i, i + 1) * HISTOGRAM_BIN
+        public final SortedMap<Integer, Long> rangeHistogram = new TreeMap<>();
+
+        public double realTimeFactor() {
+            return audioSeconds / elapsedSeconds;
+        }
+
+        void addRange(float position) {
+            int bin = (int) Math.floor(position / HISTOGRAM_BIN);
+            Long count = rangeHistogram.get(bin);
+            rangeHistogram.put(bin, count == null ? 1 : count + 1);
+        }
+
+        // Sums the counts and times of another report, the lock time is kept
+        public void add(Report other) {
+            frames += other.frames;
+            audioSeconds += other.audioSeconds;
+            elapsedSeconds += other.elapsedSeconds;
+            ranges += other.ranges;
+            positions += other.positions;
+            starts += other.starts;
+            for (Map.Entry<Integer, Long> entry: other.rangeHistogram.entrySet()) {
+                Long count = rangeHistogram.get(entry.getKey());
+                rangeHistogram.put(entry.getKey(),
+                        count == null ? entry.getValue() : count + entry.getValue());
+            }
+        }
+    }
+
+    private static class EventWriter implements RangingListener {
+        private final PrintWriter output;
+        private final Report report;
+        private final double frameTime;
+        private RangingEngine engine;
+
+        private EventWriter(Writer output, Report report, double frameTime) {
+            this.output = output != null ? new PrintWriter(output) : null;
+            this.report = report;
+            this.frameTime = frameTime;
+        }
+
+        private double time() {
+            return engine.getFrameCount() * frameTime;
+        }
+
+        private synchronized void write(String format, Object... values) {
+            if (output == null)
+                return;
+            output.print(String.format(Locale.ROOT, "%.4f\t", time()));
+            output.println(String.format(Locale.ROOT, format, values));
+        }
+
+        @Override
+        public void range(int receiverIndex, float position) {
+            write("range\t%d\t%.4f", receiverIndex, position);
+            synchronized (this) {
+                ++report.ranges;
+                report.addRange(position);
+            }
+        }
+
+        @Override
+        public void position(float x, float y) {
+            write("position\t%.4f\t%.4f", x, y);
+            synchronized (this) {
+                ++report.positions;
+            }
+        }
+
+        @Override
+        public void started(int receiverIndex, float intensity, float indexStd) {
+            write("started\t%d\t%.3f\t%.3f", receiverIndex, intensity, indexStd);
+            synchronized (this) {
+                ++report.starts;
+                if (Double.isNaN(report.lockTime))
+                    report.lockTime = time();
+            }
+        }
+
+        @Override
+        public void stopped(int receiverIndex, float intensity, float indexStd) {
+            write("stopped\t%d\t%.3f\t%.3f", receiverIndex, intensity, indexStd);
+        }
+
+        @Override
+        public void gate(boolean open, float score, long gatedCount, long checkedCount) {
+            write("gate\t%s\t%.3f", open ? "open" : "closed", score);
+        }
+
+        @Override
+        public void window(float[] prevWindow, float[] curWindow) {
+        }
+    }
+
+    // Uses config with the recording's sample rate, config itself is left unchanged. Events
+    // are only counted when output is null.
+    public static Report replay(RangingConfig config, PcmFile input, Writer output)
+            throws IOException {
+        config = config.copy();
+        config.samplingRate = input.getSampleRate();
+        Report report = new Report();
+        EventWriter writer = new EventWriter(output, report,
+                (double) config.symbolLength() / config.samplingRate);
+        RangingEngine engine = new RangingEngine(config, writer);
+        writer.engine = engine;
+        int channels = input.getChannels();
+        short[] chunk = new short[CHUNK_FRAMES];
+        long start = System.nanoTime();
+        try {
+            input.rewind();
+            ShortBuffer samples;
+            while ((samples = input.next()) != null) {
+                if (channels == 1) {
+                    engine.writePcm(samples, 0, samples.limit());
+                    continue;
+                }
+                int frames = samples.limit() / channels;
+                for (int from = 0; from < frames; from += CHUNK_FRAMES) {
+                    int count = Math.min(CHUNK_FRAMES, frames - from);
+                    for (int i = 0; i < count; ++i)
+                        chunk[i] = samples.get((from + i) * channels);
+                    engine.writePcm(chunk, 0, count);
+                }
+            }
+        } finally {
+            engine.shutdown();
+        }
+        report.elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        report.frames = engine.getFrameCount();
+        report.audioSeconds = input.getDuration();
+        if (writer.output != null) {
+            writer.output.flush();
+            if (writer.output.checkError())
+                throw new IOException("Failed to write events");
+        }
+        return report;
+    }
+
+    public static void main(String[] args) throws IOException {
+        RangingConfig config = new RangingConfig();
+        int rawRate = 0;
+        List<String> files = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; ++i) {
+                if (args[i].equals("--raw") && i + 1 < args.length) {
+                    rawRate = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--set") && i + 1 < args.length) {
+                    String[] setting = args[++i].split("=", 2);
+                    if (setting.length != 2)
+                        throw new IllegalArgumentException("Expected NAME=VALUE");
+                    config.set(setting[0], setting[1]);
+                } else if (args[i].startsWith("--")) {
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+                } else {
+                    files.add(args[i]);
+                }
+            }
+            if (files.size() != 2)
+                throw new IllegalArgumentException("Expected INPUT and OUTPUT");
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        File inputFile = new File(files.get(0));
+        try (PcmFile input = rawRate > 0 ? PcmFile.openRaw(inputFile, rawRate) :
+                PcmFile.openWav(inputFile);
+             Writer output = new BufferedWriter(new OutputStreamWriter(
+                     new FileOutputStream(files.get(1)), "UTF-8"))) {
+            Report report = replay(config, input, output);
+            System.out.println(String.format(Locale.ROOT,
+                    "%s: %.1f s of audio in %.2f s, %.1fx real time, %d frames, %d ranges, " +
+                            "%d positions", inputFile.getName(), report.audioSeconds,
+                    report.elapsedSeconds, report.realTimeFactor(), report.frames,
+                    report.ranges, report.positions));
+        }
+    }
+}
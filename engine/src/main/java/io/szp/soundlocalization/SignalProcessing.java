@@ -0,0 +1,144 @@
+package io.szp.soundlocalization;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class SignalProcessing {
+    private static final int CHIRP_RESEED_INTERVAL = 1024;
+    private static final int CHIRP_CACHE_CAPACITY = 16;
+
+    private static final Map<ChirpKey, float[]> chirpCache =
+            new LinkedHashMap<ChirpKey, float[]>(CHIRP_CACHE_CAPACITY, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<ChirpKey, float[]> eldest) {
+                    return size() > CHIRP_CACHE_CAPACITY;
+                }
+            };
+
+    public static float[] chirp(float f0, float f1, float[] t) {
+        return chirp(f0, f1, t, 0);
+    }
+
+    public static float[] chirp(float f0, float f1, float[] t, float angle) {
+        float beta = (f1 - f0) / t[t.length - 1];
+        float[] value = new float[t.length];
+        for (int i = 0; i < t.length; ++i) {
+            value[i] = (float) Math.cos(2 * Math.PI *
+                    (beta / 2 * (t[i] * t[i]) + f0 * t[i]) + angle);
+        }
+        return value;
+    }
+
+    // Same sweep as chirp(f0, f1, t, angle) with t[i] = i / sampleRate. The phasor is advanced by
+    // a step that is itself rotated by a constant, two complex multiplications per sample instead
+    // of a cosine. Every CHIRP_RESEED_INTERVAL samples both are set from the exact phase again,
+    // which renormalises them and keeps the phase error from building up.
+    public static float[] chirp(float f0, float f1, int length, float sampleRate, float angle) {
+        if (length < 2 || sampleRate <= 0)
+            throw new IllegalArgumentException("Invalid chirp length or sample rate");
+        double dt = 1.0 / sampleRate;
+        double beta = (f1 - f0) / ((length - 1) * dt);
+        double accelerationReal = Math.cos(2 * Math.PI * beta * dt * dt);
+        double accelerationImag = Math.sin(2 * Math.PI * beta * dt * dt);
+        double phasorReal = 0, phasorImag = 0, stepReal = 0, stepImag = 0;
+        float[] value = new float[length];
+        for (int i = 0; i < length; ++i) {
+            if (i % CHIRP_RESEED_INTERVAL == 0) {
+                double t = i * dt;
+                double phase = 2 * Math.PI * ((beta / 2 * t * t + f0 * t) % 1) + angle;
+                phasorReal = Math.cos(phase);
+                phasorImag = Math.sin(phase);
+                double step = 2 * Math.PI * ((beta / 2 * dt * dt * (2 * i + 1) + f0 * dt) % 1);
+                stepReal = Math.cos(step);
+                stepImag = Math.sin(step);
+            }
+            value[i] = (float) phasorReal;
+            double temp = phasorReal * stepReal - phasorImag * stepImag;
+            phasorImag = phasorReal * stepImag + phasorImag * stepReal;
+            phasorReal = temp;
+            temp = stepReal * accelerationReal - stepImag * accelerationImag;
+            stepImag = stepReal * accelerationImag + stepImag * accelerationReal;
+            stepReal = temp;
+        }
+        return value;
+    }
+
+    // Shared instances of recently used chirps, they must not be modified
+    public static float[] cachedChirp(float f0, float f1, int length, float sampleRate,
+                                      float angle) {
+        ChirpKey key = new ChirpKey(f0, f1, length, sampleRate, angle);
+        synchronized (chirpCache) {
+            float[] value = chirpCache.get(key);
+            if (value == null) {
+                value = chirp(f0, f1, length, sampleRate, angle);
+                chirpCache.put(key, value);
+            }
+            return value;
+        }
+    }
+
+    // Even FFT-friendly length that holds a linear correlation of two length-m signals
+    public static int correlationLength(int m) {
+        int m2 = 2 * m;
+        while (!FftPlan.isSmooth(m2))
+            m2 += 2;
+        return m2;
+    }
+
+    public static float[] xcorr(float[] x, float[] y) {
+        int m = Math.max(x.length, y.length), mxl = m - 1, m2 = correlationLength(m);
+        RealFftPlan plan = RealFftPlan.get(m2);
+        int h = plan.spectrumSize();
+        float[] xReal = new float[h], yReal = new float[h];
+        float[] xImag = new float[h], yImag = new float[h];
+        plan.forward(x, xReal, xImag);
+        plan.forward(y, yReal, yImag);
+        for (int i = 0; i < h; ++i) {
+            float temp = xImag[i] * yReal[i] - xReal[i] * yImag[i];
+            xReal[i] = xReal[i] * yReal[i] + xImag[i] * yImag[i];
+            xImag[i] = temp;
+        }
+        float[] result = new float[m2];
+        plan.inverse(xReal, xImag, result);
+        int length = 2 * mxl + 1;
+        float[] cor = new float[length];
+        System.arraycopy(result, m2 - mxl, cor, 0, mxl);
+        System.arraycopy(result, 0, cor, mxl, mxl + 1);
+        return cor;
+    }
+
+    private static final class ChirpKey {
+        private final float f0;
+        private final float f1;
+        private final int length;
+        private final float sampleRate;
+        private final float angle;
+
+        private ChirpKey(float f0, float f1, int length, float sampleRate, float angle) {
+            this.f0 = f0;
+            this.f1 = f1;
+            this.length = length;
+            this.sampleRate = sampleRate;
+            this.angle = angle;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ChirpKey))
+                return false;
+            ChirpKey key = (ChirpKey) o;
+            return Float.compare(f0, key.f0) == 0 && Float.compare(f1, key.f1) == 0 &&
+                    length == key.length && Float.compare(sampleRate, key.sampleRate) == 0 &&
+                    Float.compare(angle, key.angle) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = Float.floatToIntBits(f0);
+            hash = 31 * hash + Float.floatToIntBits(f1);
+            hash = 31 * hash + length;
+            hash = 31 * hash + Float.floatToIntBits(sampleRate);
+            return 31 * hash + Float.floatToIntBits(angle);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package io.szp.soundlocalization;
+
+public class SlidingWindow {
+    // Fixed-capacity ring of the most recent values with a running mean and sum of squared
+    // deviations (Welford), so mean() and std() are O(1). The running sums are rebuilt from the
+    // stored values once per capacity replacements to stop rounding errors from accumulating.
+    private final float[] values;
+    private int head;
+    private int size;
+    private int updatesSinceResync;
+    private double mean;
+    private double m2;
+
+    public SlidingWindow(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be positive");
+        values = new float[capacity];
+    }
+
+    public int capacity() {
+        return values.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == values.length;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+        updatesSinceResync = 0;
+        mean = 0;
+        m2 = 0;
+    }
+
+    public void add(float value) {
+        if (size < values.length) {
+            values[(head + size) % values.length] = value;
+            ++size;
+            double delta = value - mean;
+            mean += delta / size;
+            m2 += delta * (value - mean);
+        } else {
+            float old = values[head];
+            values[head] = value;
+            head = (head + 1) % values.length;
+            double delta = value - old;
+            double newMean = mean + delta / size;
+            m2 += delta * (value - newMean + old - mean);
+            mean = newMean;
+            if (++updatesSinceResync >= values.length)
+                resync();
+        }
+    }
+
+    public float mean() {
+        return (float) mean;
+    }
+
+    public float std() {
+        if (size == 0)
+            return 0;
+        return (float) Math.sqrt(Math.max(m2, 0) / size);
+    }
+
+    private void resync() {
+        double sum = 0;
+        for (int i = 0; i < size; ++i)
+            sum += values[i];
+        mean = sum / size;
+        double squares = 0;
+        for (int i = 0; i < size; ++i) {
+            double diff = values[i] - mean;
+            squares += diff * diff;
+        }
+        m2 = squares;
+        updatesSinceResync = 0;
+    }
+}
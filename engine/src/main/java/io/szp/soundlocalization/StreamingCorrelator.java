@@ -0,0 +1,122 @@
+package io.szp.soundlocalization;
+
+public class StreamingCorrelator {
+    // Overlap-save correlation of consecutive blocks against the filters' references. Only the
+    // spectrum of the newest block is computed, the previous block's spectrum is kept and the two
+    // are combined with a frequency-domain delay, so every sample is transformed once. Output lags
+    // 0 .. blockLength - 1 of [previous block, current block] are produced, nothing else. With
+    // several filters the combined spectrum is shared, each extra reference costs one multiply and
+    // one inverse FFT.
+    private final MatchedFilter[] filters;
+    private final int blockLength;
+    private final RealFftPlan plan;
+    private final float[] shiftReal;
+    private final float[] shiftImag;
+    private float[] prevReal;
+    private float[] prevImag;
+    private float[] curReal;
+    private float[] curImag;
+    private final float[] sumReal;
+    private final float[] sumImag;
+    private final float[] productReal;
+    private final float[] productImag;
+    private final float[] result;
+    private boolean primed = false;
+
+    public StreamingCorrelator(MatchedFilter filter) {
+        this(new MatchedFilter[]{filter});
+    }
+
+    public StreamingCorrelator(MatchedFilter[] filters) {
+        if (filters.length == 0)
+            throw new IllegalArgumentException("No filters");
+        this.filters = filters.clone();
+        blockLength = filters[0].getInputLength();
+        for (MatchedFilter filter: filters) {
+            if (filter.getReferenceLength() != blockLength ||
+                    filter.getInputLength() != blockLength)
+                throw new IllegalArgumentException("Block length differs from reference length");
+        }
+        plan = RealFftPlan.get(filters[0].size());
+        int n = plan.size(), h = plan.spectrumSize();
+        shiftReal = new float[h];
+        shiftImag = new float[h];
+        for (int k = 0; k < h; ++k) {
+            double angle = 2 * Math.PI * ((long) k * blockLength % n) / n;
+            shiftReal[k] = (float) Math.cos(angle);
+            shiftImag[k] = (float) -Math.sin(angle);
+        }
+        prevReal = new float[h];
+        prevImag = new float[h];
+        curReal = new float[h];
+        curImag = new float[h];
+        sumReal = new float[h];
+        sumImag = new float[h];
+        productReal = filters.length > 1 ? new float[h] : sumReal;
+        productImag = filters.length > 1 ? new float[h] : sumImag;
+        result = new float[n];
+    }
+
+    public int getBlockLength() {
+        return blockLength;
+    }
+
+    public int getFilterCount() {
+        return filters.length;
+    }
+
+    public void reset() {
+        primed = false;
+    }
+
+    // Single filter shortcut, see below
+    public boolean process(float[] block, float[] output) {
+        if (filters.length != 1)
+            throw new IllegalArgumentException("Expected one output per filter");
+        return process(block, output, null);
+    }
+
+    // Returns false while there is no previous block yet, outputs are untouched in that case.
+    // outputs[i] receives the correlation against the i-th filter.
+    public boolean process(float[] block, float[][] outputs) {
+        if (outputs.length != filters.length)
+            throw new IllegalArgumentException("Expected one output per filter");
+        return process(block, null, outputs);
+    }
+
+    private boolean process(float[] block, float[] output, float[][] outputs) {
+        if (block.length != blockLength)
+            throw new IllegalArgumentException("Mismatched lengths");
+        if (output != null && output.length > blockLength)
+            throw new IllegalArgumentException("Mismatched lengths");
+        if (outputs != null) {
+            for (float[] out: outputs) {
+                if (out.length > blockLength)
+                    throw new IllegalArgumentException("Mismatched lengths");
+            }
+        }
+        plan.forward(block, curReal, curImag);
+        boolean ready = primed;
+        if (ready) {
+            for (int k = 0; k < sumReal.length; ++k) {
+                sumReal[k] = prevReal[k] + curReal[k] * shiftReal[k] - curImag[k] * shiftImag[k];
+                sumImag[k] = prevImag[k] + curImag[k] * shiftReal[k] + curReal[k] * shiftImag[k];
+            }
+            for (int i = 0; i < filters.length; ++i) {
+                // The inverse transform overwrites its input, so keep the sum for the next filter
+                filters[i].multiply(sumReal, sumImag, productReal, productImag);
+                plan.inverse(productReal, productImag, result);
+                float[] out = outputs == null ? output : outputs[i];
+                System.arraycopy(result, 0, out, 0, out.length);
+            }
+        }
+        float[] temp = prevReal;
+        prevReal = curReal;
+        curReal = temp;
+        temp = prevImag;
+        prevImag = curImag;
+        curImag = temp;
+        primed = true;
+        return ready;
+    }
+}
@@ -0,0 +1,488 @@
+package io.szp.soundlocalization;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class SweepRunner {
+    // Evaluates a grid of configurations over one recording in a single pass. The recording is
+    // decoded once for all of them. Configurations that only differ in the detector (thresholds,
+    // buffer and FFT lengths, tracking, acquisition) form a group with one framer, one front end,
+    // one set of matched filters, one shared correlator and one coarse correlator per decimation,
+    // so every window is correlated once per group however many configurations it has. The
+    // energy gate is left out: which frames it drops depends on each configuration's lock state.
+    // Without the true ranges the ranking only measures how often and how steadily each
+    // configuration reports, which says nothing of bias; given them, it ranks by the error.
+    private static final int CHUNK_FRAMES = 4096;
+    private static final String USAGE = "Usage: SweepRunner [--raw RATE] [--threads N] " +
+            "[--reference RANGE[,RANGE]] [--set NAME=VALUE]... [--grid NAME=VALUE,VALUE...]... " +
+            "INPUT [REPORT]\n" +
+            "  INPUT is a 16-bit PCM WAV file, or raw little-endian mono int16 with --raw\n" +
+            "  RANGE is the true range of the first and second sender in meters\n" +
+            "  NAME is any public field of RangingConfig";
+
+    public static class Result {
+        public final RangingConfig config;
+        // The grid values of this configuration
+        public final String label;
+        public int rank;
+        // Audio time of the first lock, NaN if there was none
+        public double lockTime = Double.NaN;
+        public long starts;
+        public long stops;
+        public long ranges;
+        // Ranges per frame and receiver
+        public double coverage;
+        // RMS change between successive ranges of a receiver over sqrt(2), in meters. For a
+        // still sender this is the standard deviation of the ranges.
+        public double jitter = Double.NaN;
+        // RMS difference between the ranges and the reference ones, in meters. NaN without a
+        // reference or ranges.
+        public double error = Double.NaN;
+        // Processing seconds per second of audio when run alone
+        public double cost;
+
+        private final int receivers;
+        private final float[] reference;
+        private final float[] lastRange = new float[2];
+        private final boolean[] hasRange = new boolean[2];
+        private double squaredChanges;
+        private long changes;
+        private double squaredErrors;
+        private long ownNanos;
+
+        private Result(RangingConfig config, String label, float[] reference) {
+            this.config = config;
+            this.label = label;
+            this.reference = reference;
+            receivers = config.twoDimensionEnabled ? 2 : 1;
+            if (reference != null && reference.length < receivers)
+                throw new IllegalArgumentException("Expected a reference range per receiver");
+        }
+
+        private synchronized void range(int receiverIndex, float range) {
+            int i = receiverIndex - 1;
+            if (hasRange[i]) {
+                float change = range - lastRange[i];
+                squaredChanges += change * change;
+                ++changes;
+            }
+            if (reference != null) {
+                float difference = range - reference[i];
+                squaredErrors += difference * difference;
+            }
+            lastRange[i] = range;
+            hasRange[i] = true;
+            ++ranges;
+        }
+    }
+
+    public static class SweepReport {
+        // Best first
+        public final List<Result> results;
+        public int groups;
+        public double audioSeconds;
+        public double elapsedSeconds;
+
+        private SweepReport(List<Result> results) {
+            this.results = results;
+        }
+
+        public double realTimeFactor() {
+            return audioSeconds / elapsedSeconds;
+        }
+    }
+
+    // Configurations that lock come first, then the ones reporting the most ranges, the steadiest
+    // and the cheapest. Coverage is compared in steps of 1% so that jitter gets a say.
+    private static final Comparator<Result> COVERAGE_RANKING = new Comparator<Result>() {
+        @Override
+        public int compare(Result a, Result b) {
+            if ((a.starts > 0) != (b.starts > 0))
+                return a.starts > 0 ? -1 : 1;
+            int order = Long.compare(Math.round(b.coverage * 100), Math.round(a.coverage * 100));
+            if (order != 0)
+                return order;
+            if (Double.isNaN(a.jitter) != Double.isNaN(b.jitter))
+                return Double.isNaN(a.jitter) ? 1 : -1;
+            order = Double.compare(a.jitter, b.jitter);
+            return order != 0 ? order : Double.compare(a.cost, b.cost);
+        }
+    };
+
+    // With reference ranges: configurations that lock come first, then the ones closest to the
+    // reference, the ones reporting the most ranges and the cheapest
+    private static final Comparator<Result> ERROR_RANKING = new Comparator<Result>() {
+        @Override
+        public int compare(Result a, Result b) {
+            if ((a.starts > 0) != (b.starts > 0))
+                return a.starts > 0 ? -1 : 1;
+            if (Double.isNaN(a.error) != Double.isNaN(b.error))
+                return Double.isNaN(a.error) ? 1 : -1;
+            int order = Double.compare(a.error, b.error);
+            if (order != 0)
+                return order;
+            order = Double.compare(b.coverage, a.coverage);
+            return order != 0 ? order : Double.compare(a.cost, b.cost);
+        }
+    };
+
+    private static class Group implements PcmFramer.FrameHandler {
+        private final RangingConfig config;
+        private final double frameTime;
+        private final PcmFramer framer;
+        private final BasebandFrontEnd frontEnd;
+        private final float[] window;
+        private final float processingRate;
+        private final List<Result> results = new ArrayList<>();
+        private ProcessorScheduler scheduler;
+        private ReceiverProcessor[] processors;
+        private int[] filterIndices;
+        private int[] coarseIndices;
+        private Result[] owners;
+        private boolean[] usingCorrelator;
+        private long frontEndNanos;
+        // Written before the processors run, so their handlers may read it
+        private volatile long frameCount;
+
+        private Group(RangingConfig config) {
+            this.config = config;
+            frameTime = (double) config.symbolLength() / config.samplingRate;
+            framer = new PcmFramer(config.symbolLength());
+            frontEnd = RangingEngine.frontEnd(config);
+            window = frontEnd != null ? new float[frontEnd.getOutputLength()] : null;
+            processingRate = frontEnd != null ? frontEnd.getOutputRate() : config.samplingRate;
+        }
+
+        private void build(int threads) {
+            int receivers = config.twoDimensionEnabled ? 2 : 1;
+            MatchedFilter[] filters = new MatchedFilter[receivers];
+            float[][] symbols = new float[receivers][];
+            for (int i = 0; i < receivers; ++i) {
+                symbols[i] = RangingEngine.symbol(config, frontEnd, i + 1);
+                filters[i] = new MatchedFilter(symbols[i], symbols[i].length);
+            }
+            processors = new ReceiverProcessor[results.size() * receivers];
+            filterIndices = new int[processors.length];
+            coarseIndices = new int[processors.length];
+            owners = new Result[processors.length];
+            usingCorrelator = new boolean[processors.length];
+            List<CoarseCorrelator> coarse = new ArrayList<>();
+            Map<String, Integer> coarseKeys = new LinkedHashMap<>();
+            boolean shared = false;
+            for (int i = 0; i < results.size(); ++i) {
+                Result result = results.get(i);
+                ReceiverParameter parameter = RangingEngine.parameter(result.config, frontEnd);
+                for (int j = 0; j < receivers; ++j) {
+                    int k = i * receivers + j;
+                    processors[k] = new ReceiverProcessor(j + 1, parameter, symbols[j],
+                            filters[j], new Receiver(result, j + 1,
+                            RangingEngine.sweep(result.config, j + 1)));
+                    coarseIndices[k] = coarseIndex(coarse, coarseKeys, symbols[j], j,
+                            result.config.acquisitionDecimation);
+                    filterIndices[k] = coarseIndices[k] < 0 ? j : -1;
+                    shared |= filterIndices[k] >= 0;
+                    owners[k] = result;
+                }
+            }
+            scheduler = new ProcessorScheduler(processors,
+                    shared ? new StreamingCorrelator(filters) : null, filterIndices,
+                    coarse.isEmpty() ? null : coarse.toArray(new CoarseCorrelator[0]),
+                    coarseIndices, threads);
+        }
+
+        // The shared coarse correlator a processor uses, -1 when it correlates at the full rate
+        // like ReceiverProcessor does for such a decimation
+        private static int coarseIndex(List<CoarseCorrelator> coarse, Map<String, Integer> keys,
+                                       float[] symbol, int receiver, int decimation) {
+            if (decimation <= 1)
+                return -1;
+            String key = receiver + " " + decimation;
+            Integer index = keys.get(key);
+            if (index == null) {
+                CoarseCorrelator correlator = new CoarseCorrelator(symbol, decimation);
+                index = correlator.getDecimation() < 2 ? -1 : coarse.size();
+                if (index >= 0)
+                    coarse.add(correlator);
+                keys.put(key, index);
+            }
+            return index;
+        }
+
+        @Override
+        public float[] frame(float[] frame) {
+            ++frameCount;
+            float[] input = frame;
+            if (frontEnd != null) {
+                long start = System.nanoTime();
+                frontEnd.process(frame, window);
+                frontEndNanos += System.nanoTime() - start;
+                input = window;
+            }
+            // Every configuration that needs a shared correlation is charged all of it, as it
+            // would have been on its own
+            for (int i = 0; i < processors.length; ++i)
+                usingCorrelator[i] = (filterIndices[i] >= 0 || coarseIndices[i] >= 0) &&
+                        !processors[i].isTracking();
+            long before = scheduler.getCorrelatorNanos();
+            scheduler.process(input);
+            long spent = scheduler.getCorrelatorNanos() - before;
+            Result charged = null;
+            for (int i = 0; i < processors.length; ++i) {
+                if (usingCorrelator[i] && owners[i] != charged) {
+                    charged = owners[i];
+                    charged.ownNanos += spent;
+                }
+            }
+            return frame;
+        }
+
+        private void finish(double audioSeconds) {
+            scheduler.shutdown();
+            for (int i = 0; i < processors.length; ++i)
+                owners[i].ownNanos += scheduler.getProcessorNanos(i);
+            for (Result result: results) {
+                result.cost = (result.ownNanos + frontEndNanos) / 1e9 / audioSeconds;
+                result.coverage = frameCount == 0 ? 0 :
+                        (double) result.ranges / (frameCount * result.receivers);
+                if (result.changes > 0)
+                    result.jitter = Math.sqrt(result.squaredChanges / result.changes / 2);
+                if (result.reference != null && result.ranges > 0)
+                    result.error = Math.sqrt(result.squaredErrors / result.ranges);
+            }
+        }
+
+        private class Receiver implements ReceiverProcessorHandler {
+            private final Result result;
+            private final int receiverIndex;
+            private final float sweep;
+
+            private Receiver(Result result, int receiverIndex, float sweep) {
+                this.result = result;
+                this.receiverIndex = receiverIndex;
+                this.sweep = sweep;
+            }
+
+            @Override
+            public int handle(float value, int length) {
+                float range = RangingEngine.range(value, length, processingRate,
+                        result.config.cycleTime, sweep);
+                result.range(receiverIndex, range);
+                return RangingEngine.lag(range, processingRate);
+            }
+
+            @Override
+            public void started(int receiverIndex, float intensity, float indexStd) {
+                synchronized (result) {
+                    ++result.starts;
+                    if (Double.isNaN(result.lockTime))
+                        result.lockTime = frameCount * frameTime;
+                }
+            }
+
+            @Override
+            public void stopped(int receiverIndex, float intensity, float indexStd) {
+                synchronized (result) {
+                    ++result.stops;
+                }
+            }
+
+            @Override
+            public void window(float[] prevWindow, float[] curWindow) {
+            }
+        }
+    }
+
+    // Configurations that share everything up to the correlation
+    private static String groupKey(RangingConfig config) {
+        return String.format(Locale.ROOT, "%d %s %s %s %s %s %s %b %b", config.samplingRate,
+                config.cycleTime, config.startFreq1, config.endFreq1, config.startFreq2,
+                config.endFreq2, config.symbolLength(), config.twoDimensionEnabled,
+                config.basebandEnabled);
+    }
+
+    public static SweepReport sweep(RangingConfig base, Map<String, List<String>> axes,
+                                    PcmFile input, int threads) throws IOException {
+        return sweep(base, axes, input, threads, null);
+    }
+
+    // Every combination of the axes' values applied to base, the recording's rate replacing
+    // base's. Each axis maps a RangingConfig field to its values. reference holds the true range
+    // of each sender in meters, or is null when they are unknown.
+    public static SweepReport sweep(RangingConfig base, Map<String, List<String>> axes,
+                                    PcmFile input, int threads, float[] reference)
+            throws IOException {
+        if (threads <= 0)
+            throw new IllegalArgumentException("Invalid thread count");
+        base = base.copy();
+        base.samplingRate = input.getSampleRate();
+        base.energyGateEnabled = false;
+        List<Result> results = new ArrayList<>();
+        results.add(new Result(base, "", reference));
+        for (Map.Entry<String, List<String>> axis: axes.entrySet()) {
+            if (axis.getValue().isEmpty())
+                throw new IllegalArgumentException("No values for " + axis.getKey());
+            List<Result> expanded = new ArrayList<>();
+            for (Result result: results) {
+                for (String value: axis.getValue()) {
+                    RangingConfig config = result.config.copy();
+                    config.set(axis.getKey(), value);
+                    String setting = axis.getKey() + "=" + value;
+                    expanded.add(new Result(config, result.label.isEmpty() ? setting :
+                            result.label + " " + setting, reference));
+                }
+            }
+            results = expanded;
+        }
+        Map<String, Group> groups = new LinkedHashMap<>();
+        for (Result result: results) {
+            String key = groupKey(result.config);
+            Group group = groups.get(key);
+            if (group == null) {
+                group = new Group(result.config);
+                groups.put(key, group);
+            }
+            group.results.add(result);
+        }
+        for (Group group: groups.values())
+            group.build(threads);
+
+        int channels = input.getChannels();
+        short[] chunk = new short[CHUNK_FRAMES];
+        long start = System.nanoTime();
+        try {
+            input.rewind();
+            ShortBuffer samples;
+            while ((samples = input.next()) != null) {
+                if (channels == 1) {
+                    for (Group group: groups.values())
+                        group.framer.write(samples, 0, samples.limit(), group);
+                    continue;
+                }
+                int frames = samples.limit() / channels;
+                for (int from = 0; from < frames; from += CHUNK_FRAMES) {
+                    int count = Math.min(CHUNK_FRAMES, frames - from);
+                    for (int i = 0; i < count; ++i)
+                        chunk[i] = samples.get((from + i) * channels);
+                    for (Group group: groups.values())
+                        group.framer.write(chunk, 0, count, group);
+                }
+            }
+        } finally {
+            for (Group group: groups.values())
+                group.finish(input.getDuration());
+        }
+        SweepReport report = new SweepReport(results);
+        report.elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        report.audioSeconds = input.getDuration();
+        report.groups = groups.size();
+        Collections.sort(results, reference != null ? ERROR_RANKING : COVERAGE_RANKING);
+        for (int i = 0; i < results.size(); ++i)
+            results.get(i).rank = i + 1;
+        return report;
+    }
+
+    public static void write(SweepReport report, Writer writer) throws IOException {
+        PrintWriter output = new PrintWriter(writer);
+        output.println("rank\tcoverage\tjitter_m\terror_m\tlock_s\tstarts\tstops\tranges\t" +
+                "cost_ms_per_s\tconfig");
+        for (Result result: report.results) {
+            output.println(String.format(Locale.ROOT,
+                    "%d\t%.3f\t%s\t%s\t%s\t%d\t%d\t%d\t%.2f\t%s",
+                    result.rank, result.coverage, Double.isNaN(result.jitter) ? "" :
+                            String.format(Locale.ROOT, "%.5f", result.jitter),
+                    Double.isNaN(result.error) ? "" :
+                            String.format(Locale.ROOT, "%.5f", result.error),
+                    Double.isNaN(result.lockTime) ? "" :
+                            String.format(Locale.ROOT, "%.3f", result.lockTime),
+                    result.starts, result.stops, result.ranges, result.cost * 1000,
+                    result.label));
+        }
+        output.flush();
+        if (output.checkError())
+            throw new IOException("Failed to write report");
+    }
+
+    public static void main(String[] args) throws IOException {
+        RangingConfig config = new RangingConfig();
+        Map<String, List<String>> axes = new LinkedHashMap<>();
+        int threads = Runtime.getRuntime().availableProcessors();
+        int rawRate = 0;
+        float[] reference = null;
+        List<String> paths = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; ++i) {
+                if (args[i].equals("--raw") && i + 1 < args.length) {
+                    rawRate = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                    threads = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--reference") && i + 1 < args.length) {
+                    String[] ranges = args[++i].split(",");
+                    if (ranges.length > 2)
+                        throw new IllegalArgumentException("Expected at most two ranges");
+                    reference = new float[ranges.length];
+                    for (int j = 0; j < ranges.length; ++j)
+                        reference[j] = Float.parseFloat(ranges[j]);
+                } else if ((args[i].equals("--set") || args[i].equals("--grid")) &&
+                        i + 1 < args.length) {
+                    boolean grid = args[i].equals("--grid");
+                    String[] setting = args[++i].split("=", 2);
+                    if (setting.length != 2)
+                        throw new IllegalArgumentException("Expected NAME=VALUE");
+                    if (grid)
+                        axes.put(setting[0], Arrays.asList(setting[1].split(",")));
+                    else
+                        config.set(setting[0], setting[1]);
+                } else if (args[i].startsWith("--")) {
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+                } else {
+                    paths.add(args[i]);
+                }
+            }
+            if (paths.size() != 1 && paths.size() != 2)
+                throw new IllegalArgumentException("Expected INPUT");
+            if (threads <= 0)
+                throw new IllegalArgumentException("Invalid thread count");
+            // Checks the grid's names and values before the recording is opened
+            for (Map.Entry<String, List<String>> axis: axes.entrySet())
+                for (String value: axis.getValue())
+                    config.copy().set(axis.getKey(), value);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        File inputFile = new File(paths.get(0));
+        SweepReport report;
+        try (PcmFile input = rawRate > 0 ? PcmFile.openRaw(inputFile, rawRate) :
+                PcmFile.openWav(inputFile)) {
+            report = sweep(config, axes, input, threads, reference);
+        }
+        if (paths.size() == 2) {
+            try (Writer output = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(paths.get(1)), "UTF-8"))) {
+                write(report, output);
+            }
+        } else {
+            write(report, new OutputStreamWriter(System.out, "UTF-8"));
+        }
+        System.err.println(String.format(Locale.ROOT,
+                "%d configurations in %d groups, %.1f s of audio in %.2f s, %.1fx real time",
+                report.results.size(), report.groups, report.audioSeconds,
+                report.elapsedSeconds, report.realTimeFactor()));
+    }
+}
@@ -0,0 +1,189 @@
+package io.szp.soundlocalization;
+
+public class ZoomSpectrum {
+    // Power spectrum of a zero-padded input over bins [firstBin, firstBin + bins) of a
+    // transformLength-point DFT. A narrow band is computed as a chirp-z transform, a convolution
+    // of about inputLength + bins points, instead of the full transform; when that would not be
+    // cheaper a full real FFT is used and the band is cut out of it. Peaks can be refined to a
+    // fraction of a bin from three neighbouring bins. Not thread-safe.
+    private final int inputLength;
+    private final int transformLength;
+    private final int firstBin;
+    private final int bins;
+
+    private final RealFftPlan fullPlan;
+    private final FftPlan zoomPlan;
+    private final float[] chirpReal;
+    private final float[] chirpImag;
+    private final float[] kernelReal;
+    private final float[] kernelImag;
+    private final float[] real;
+    private final float[] imag;
+    private final float[] left = new float[2];
+    private final float[] center = new float[2];
+    private final float[] right = new float[2];
+
+    public ZoomSpectrum(int inputLength, int transformLength, int firstBin, int bins) {
+        if (inputLength < 1 || bins < 1 || firstBin < 0 || transformLength < inputLength ||
+                firstBin + bins > transformLength / 2 + 1)
+            throw new IllegalArgumentException("Invalid zoom range");
+        this.inputLength = inputLength;
+        this.transformLength = transformLength;
+        this.firstBin = firstBin;
+        this.bins = bins;
+        int length = inputLength + bins - 1;
+        while (!FftPlan.isSmooth(length))
+            ++length;
+        if (transformLength % 2 != 0 || zoomCost(length) < fullCost(transformLength)) {
+            fullPlan = null;
+            zoomPlan = FftPlan.get(length);
+            // x[n] is pre-multiplied by exp(-i pi (n^2 + 2 firstBin n) / N) and convolved with
+            // exp(i pi m^2 / N); the output chirp left over has unit magnitude, so the power
+            // needs no post-multiplication. Phases are reduced modulo 2N exactly.
+            long period = 2L * transformLength;
+            chirpReal = new float[inputLength];
+            chirpImag = new float[inputLength];
+            for (int n = 0; n < inputLength; ++n) {
+                double angle = Math.PI * (((long) n * n + 2L * firstBin * n) % period) /
+                        transformLength;
+                chirpReal[n] = (float) Math.cos(angle);
+                chirpImag[n] = (float) -Math.sin(angle);
+            }
+            kernelReal = new float[length];
+            kernelImag = new float[length];
+            for (int m = 0; m < bins; ++m) {
+                double angle = Math.PI * ((long) m * m % period) / transformLength;
+                kernelReal[m] = (float) Math.cos(angle);
+                kernelImag[m] = (float) Math.sin(angle);
+            }
+            for (int m = 1; m < inputLength; ++m) {
+                double angle = Math.PI * ((long) m * m % period) / transformLength;
+                kernelReal[length - m] = (float) Math.cos(angle);
+                kernelImag[length - m] = (float) Math.sin(angle);
+            }
+            zoomPlan.forward(kernelReal, kernelImag);
+            real = new float[length];
+            imag = new float[length];
+        } else {
+            fullPlan = RealFftPlan.get(transformLength);
+            zoomPlan = null;
+            chirpReal = chirpImag = kernelReal = kernelImag = null;
+            real = new float[fullPlan.spectrumSize()];
+            imag = new float[fullPlan.spectrumSize()];
+        }
+    }
+
+    // Rough operation counts: one half-size complex FFT plus the split for the full transform,
+    // two complex FFTs plus the pointwise products for the zoom
+    private static double fullCost(int n) {
+        return n / 2.0 * log2(n / 2.0) + 2 * n;
+    }
+
+    private static double zoomCost(int n) {
+        return 2 * n * log2(n) + 2 * n;
+    }
+
+    private static double log2(double x) {
+        return Math.log(x) / Math.log(2);
+    }
+
+    public int getInputLength() {
+        return inputLength;
+    }
+
+    public int size() {
+        return transformLength;
+    }
+
+    public int getFirstBin() {
+        return firstBin;
+    }
+
+    public int getBins() {
+        return bins;
+    }
+
+    public boolean isZoomed() {
+        return zoomPlan != null;
+    }
+
+    // Writes |X[firstBin + k]|^2 for k in 0 .. bins - 1
+    public void power(float[] input, float[] output) {
+        if (input.length != inputLength || output.length < bins)
+            throw new IllegalArgumentException("Mismatched lengths");
+        if (fullPlan != null) {
+            fullPlan.forward(input, real, imag);
+            for (int k = 0; k < bins; ++k) {
+                int i = firstBin + k;
+                output[k] = real[i] * real[i] + imag[i] * imag[i];
+            }
+            return;
+        }
+        for (int n = 0; n < inputLength; ++n) {
+            real[n] = input[n] * chirpReal[n];
+            imag[n] = input[n] * chirpImag[n];
+        }
+        for (int n = inputLength; n < real.length; ++n) {
+            real[n] = 0;
+            imag[n] = 0;
+        }
+        zoomPlan.forward(real, imag);
+        for (int i = 0; i < real.length; ++i) {
+            float temp = real[i] * kernelReal[i] - imag[i] * kernelImag[i];
+            imag[i] = real[i] * kernelImag[i] + imag[i] * kernelReal[i];
+            real[i] = temp;
+        }
+        zoomPlan.inverse(real, imag);
+        for (int k = 0; k < bins; ++k)
+            output[k] = real[k] * real[k] + imag[k] * imag[k];
+    }
+
+    // Writes the complex value of bin firstBin + k of the last input passed to power()
+    public void bin(int k, float[] value) {
+        if (k < 0 || k >= bins || value.length < 2)
+            throw new IllegalArgumentException("Bin out of range");
+        if (fullPlan != null) {
+            value[0] = real[firstBin + k];
+            value[1] = imag[firstBin + k];
+            return;
+        }
+        // Apply the output chirp exp(-i pi k^2 / N) skipped by power()
+        double angle = Math.PI * ((long) k * k % (2L * transformLength)) / transformLength;
+        float c = (float) Math.cos(angle), s = (float) -Math.sin(angle);
+        value[0] = real[k] * c - imag[k] * s;
+        value[1] = real[k] * s + imag[k] * c;
+    }
+
+    // Fractional bin (on the N-point grid, firstBin included) of the peak at bin firstBin + k of
+    // the last input. On an unpadded spectrum Jacobsen's complex three-point estimator is close to
+    // exact, but zero-padding biases it towards the centre bin; padded spectra are smooth around
+    // the peak and a parabola through the log powers fits them better.
+    public float interpolate(int k) {
+        if (k <= 0 || k >= bins - 1)
+            return firstBin + k;
+        bin(k - 1, left);
+        bin(k, center);
+        bin(k + 1, right);
+        double delta;
+        if (transformLength <= inputLength + 1) { // Odd inputs are padded by one sample
+            double numReal = left[0] - right[0], numImag = left[1] - right[1];
+            double denReal = 2 * center[0] - left[0] - right[0];
+            double denImag = 2 * center[1] - left[1] - right[1];
+            double den = denReal * denReal + denImag * denImag;
+            if (den == 0)
+                return firstBin + k;
+            delta = (numReal * denReal + numImag * denImag) / den;
+        } else {
+            double a = Math.log(left[0] * left[0] + left[1] * left[1]);
+            double b = Math.log(center[0] * center[0] + center[1] * center[1]);
+            double c = Math.log(right[0] * right[0] + right[1] * right[1]);
+            double den = a - 2 * b + c;
+            if (den >= 0 || Double.isNaN(den)) // Not a local maximum
+                return firstBin + k;
+            delta = 0.5 * (a - c) / den;
+        }
+        if (delta < -1 || delta > 1 || Double.isNaN(delta))
+            return firstBin + k;
+        return (float) (firstBin + k + delta);
+    }
+}
@@ -0,0 +1,62 @@
+package io.szp.soundlocalization;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BatchRunnerTest {
+    private static File directory(RangingConfig config) throws IOException {
+        File directory = File.createTempFile("batch", "");
+        assertTrue(directory.delete() && directory.mkdir());
+        directory.deleteOnExit();
+        String[] names = { "a.wav", "b.wav", "c.wav", "d.pcm" };
+        for (String name: names) {
+            File file = name.equals("c.wav") ?
+                    ReplayRunnerTest.write(new short[100], 1, config.samplingRate, false) :
+                    ReplayRunnerTest.write(ReplayRunnerTest.pcm(config, 1), 1,
+                            config.samplingRate, name.endsWith(".wav"));
+            File target = new File(directory, name);
+            assertTrue(file.renameTo(target));
+            target.deleteOnExit();
+        }
+        return directory;
+    }
+
+    @Test
+    public void run_summarisesEveryFileInParallel() throws IOException {
+        RangingConfig config = new RangingConfig();
+        File directory = directory(config);
+        assertEquals(3, BatchRunner.listRecordings(directory, 0).size());
+        List<File> files = BatchRunner.listRecordings(directory, config.samplingRate);
+        assertEquals(4, files.size());
+        BatchRunner.BatchReport sequential = BatchRunner.run(config, files,
+                config.samplingRate, null, 1);
+        BatchRunner.BatchReport parallel = BatchRunner.run(config, files,
+                config.samplingRate, null, 3);
+        for (BatchRunner.BatchReport report: new BatchRunner.BatchReport[] {
+                sequential, parallel }) {
+            assertEquals(1, report.failures());
+            assertEquals("c.wav", report.files.get(2).file.getName());
+            assertNotNull(report.files.get(2).error);
+            ReplayRunner.Report first = report.files.get(0).report;
+            assertEquals(3 * first.ranges, report.total.ranges);
+            assertEquals(3, report.total.starts);
+            assertTrue(first.lockTime > 0);
+            long histogramCount = 0;
+            for (long count: report.total.rangeHistogram.values())
+                histogramCount += count;
+            assertEquals(report.total.ranges, histogramCount);
+        }
+        assertEquals(sequential.total.ranges, parallel.total.ranges);
+        assertEquals(sequential.total.rangeHistogram, parallel.total.rangeHistogram);
+        StringWriter output = new StringWriter();
+        BatchRunner.write(parallel, output);
+        assertTrue(output.toString().contains("\ntotal\t"));
+        assertTrue(output.toString().contains("\nd.pcm\t"));
+    }
+}
@@ -0,0 +1,147 @@
+package io.szp.soundlocalization;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FFTTest {
+    private static final int[] SIZES = new int[] { 1, 2, 3, 8, 12, 49, 64, 105, 143, 1031, 1764, 2205 };
+
+    private static void dft(float[] real, float[] imag, double[] outReal, double[] outImag) {
+        int n = real.length;
+        for (int k = 0; k < n; ++k) {
+            double sumReal = 0, sumImag = 0;
+            for (int j = 0; j < n; ++j) {
+                double angle = -2 * Math.PI * ((long) j * k % n) / n;
+                sumReal += real[j] * Math.cos(angle) - imag[j] * Math.sin(angle);
+                sumImag += real[j] * Math.sin(angle) + imag[j] * Math.cos(angle);
+            }
+            outReal[k] = sumReal;
+            outImag[k] = sumImag;
+        }
+    }
+
+    private static float[] random(Random random, int n) {
+        float[] data = new float[n];
+        for (int i = 0; i < n; ++i)
+            data[i] = random.nextFloat() - 0.5f;
+        return data;
+    }
+
+    @Test
+    public void fft_matchesDft() {
+        Random random = new Random(0);
+        for (int n: SIZES) {
+            float[] real = random(random, n), imag = random(random, n);
+            double[] expectedReal = new double[n], expectedImag = new double[n];
+            dft(real, imag, expectedReal, expectedImag);
+            float[] bluesteinReal = real.clone(), bluesteinImag = imag.clone();
+            FFT.fft(real, imag);
+            // Any length, powers of 2 included
+            FFT.fftBluestein(bluesteinReal, bluesteinImag);
+            for (int i = 0; i < n; ++i) {
+                assertEquals("n = " + n, expectedReal[i], real[i], 1e-3);
+                assertEquals("n = " + n, expectedImag[i], imag[i], 1e-3);
+                assertEquals("n = " + n, expectedReal[i], bluesteinReal[i], 1e-3);
+                assertEquals("n = " + n, expectedImag[i], bluesteinImag[i], 1e-3);
+            }
+        }
+    }
+
+    @Test
+    public void ifft_invertsFft() {
+        Random random = new Random(1);
+        for (int n: SIZES) {
+            float[] real = random(random, n), imag = random(random, n);
+            float[] resultReal = real.clone(), resultImag = imag.clone();
+            FFT.fft(resultReal, resultImag);
+            FFT.ifft(resultReal, resultImag);
+            assertArrayEquals("n = " + n, real, resultReal, 1e-5f);
+            assertArrayEquals("n = " + n, imag, resultImag, 1e-5f);
+        }
+    }
+
+    @Test
+    public void rfft_matchesFft() {
+        Random random = new Random(2);
+        for (int n: new int[] { 2, 4, 6, 10, 98, 1024, 3528 }) {
+            float[] input = random(random, n - 1);
+            float[] real = new float[n], imag = new float[n];
+            System.arraycopy(input, 0, real, 0, input.length);
+            FFT.fft(real, imag);
+            float[] spectrumReal = new float[n / 2 + 1], spectrumImag = new float[n / 2 + 1];
+            FFT.rfft(input, n, spectrumReal, spectrumImag);
+            for (int i = 0; i <= n / 2; ++i) {
+                assertEquals("n = " + n, real[i], spectrumReal[i], 1e-3);
+                assertEquals("n = " + n, imag[i], spectrumImag[i], 1e-3);
+            }
+            float[] output = new float[n];
+            FFT.irfft(spectrumReal, spectrumImag, output);
+            for (int i = 0; i < n; ++i)
+                assertEquals("n = " + n, i < input.length ? input[i] : 0, output[i], 1e-5);
+        }
+    }
+
+    @Test
+    public void zoomSpectrum_matchesRfft() {
+        Random random = new Random(3);
+        // Narrow bands take the chirp-z path, wide ones the full transform
+        int[][] cases = new int[][] { { 441, 8192, 0, 819 }, { 441, 4096, 100, 300 },
+                { 500, 1000, 0, 501 } };
+        boolean[] zoomed = new boolean[] { true, true, false };
+        for (int c = 0; c < cases.length; ++c) {
+            int length = cases[c][0], n = cases[c][1], first = cases[c][2], bins = cases[c][3];
+            float[] input = random(random, length);
+            float[] real = new float[n / 2 + 1], imag = new float[n / 2 + 1];
+            FFT.rfft(input, n, real, imag);
+            ZoomSpectrum zoom = new ZoomSpectrum(length, n, first, bins);
+            assertEquals(zoomed[c], zoom.isZoomed());
+            float[] power = new float[bins];
+            zoom.power(input, power);
+            for (int k = 0; k < bins; ++k) {
+                int i = first + k;
+                float expected = real[i] * real[i] + imag[i] * imag[i];
+                assertEquals("n = " + n, expected, power[k], 1e-3 * (1 + expected));
+            }
+        }
+    }
+
+    @Test
+    public void zoomSpectrum_interpolatesPeak() {
+        int length = 1000;
+        float[] input = new float[length];
+        // Unpadded, padded and zoomed spectra
+        for (int n: new int[] { 1000, 4000, 8000 }) {
+            double bin = 37.3 * n / length;
+            for (int i = 0; i < length; ++i)
+                input[i] = (float) Math.cos(2 * Math.PI * bin * i / n + 0.7);
+            ZoomSpectrum zoom = new ZoomSpectrum(length, n, 0, n / 10);
+            float[] power = new float[zoom.getBins()];
+            zoom.power(input, power);
+            float peak = zoom.interpolate(MathUtils.argmax(power));
+            assertEquals("n = " + n, bin, peak, 0.01 * n / length);
+        }
+    }
+
+    @Test
+    public void plan_choosesAlgorithm() {
+        assertTrue(FftPlan.get(8192).isRadix2());
+        assertTrue(FftPlan.get(7056).isMixedRadix());
+        assertFalse(FftPlan.get(1031).isRadix2());
+        assertFalse(FftPlan.get(1031).isMixedRadix());
+        assertTrue(FftPlan.get(1031).isBluestein());
+        assertFalse(FftPlan.get(1764).isBluestein());
+        assertTrue(FftPlan.getBluestein(1764).isBluestein());
+        assertTrue(FftPlan.getBluestein(4096).isBluestein());
+    }
+
+    @Test
+    public void plan_isCached() {
+        assertSame(FftPlan.get(1764), FftPlan.get(1764));
+        assertSame(FftPlan.getBluestein(1759), FftPlan.getBluestein(1759));
+        assertNotSame(FftPlan.get(1764), FftPlan.getBluestein(1764));
+        assertSame(RealFftPlan.get(3528), RealFftPlan.get(3528));
+    }
+}
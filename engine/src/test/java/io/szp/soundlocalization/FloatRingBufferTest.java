@@ -0,0 +1,39 @@
+package io.szp.soundlocalization;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FloatRingBufferTest {
+    @Test
+    public void frames_areContiguousAcrossWrap() {
+        FloatRingBuffer buffer = new FloatRingBuffer(8);
+        float next = 0, expected = 0;
+        float[] block = new float[5];
+        for (int round = 0; round < 20; ++round) {
+            for (int i = 0; i < block.length; ++i)
+                block[i] = next++;
+            buffer.write(block, 0, block.length);
+            while (buffer.size() >= 3) {
+                float[] array = buffer.array();
+                int offset = buffer.readOffset();
+                for (int i = 0; i < 3; ++i)
+                    assertEquals(expected + i, array[offset + i], 0);
+                buffer.discard(3);
+                expected += 3;
+            }
+        }
+    }
+
+    @Test
+    public void write_rejectsOverflow() {
+        FloatRingBuffer buffer = new FloatRingBuffer(4);
+        buffer.write(new float[3], 0, 3);
+        try {
+            buffer.write(new float[2], 0, 2);
+            fail("Expected overflow");
+        } catch (IllegalStateException e) {
+            assertEquals(3, buffer.size());
+        }
+    }
+}
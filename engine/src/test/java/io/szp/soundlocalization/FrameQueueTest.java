@@ -0,0 +1,57 @@
+package io.szp.soundlocalization;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FrameQueueTest {
+    @Test
+    public void frames_arriveInOrderAcrossThreads() throws InterruptedException {
+        final FrameQueue queue = new FrameQueue(4, 1);
+        final int count = 100000;
+        final long[] drops = new long[1];
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < count; ++i) {
+                    FrameQueue.Frame frame;
+                    while ((frame = queue.acquire()) == null)
+                        Thread.yield();
+                    frame.samples[0] = i;
+                    queue.offer(frame);
+                }
+                drops[0] = queue.getDropCount();
+            }
+        });
+        producer.start();
+        for (int i = 0; i < count; ++i) {
+            FrameQueue.Frame frame;
+            while ((frame = queue.poll(1000000)) == null)
+                assertTrue(producer.isAlive() || queue.depth() > 0);
+            assertEquals(i, frame.samples[0], 0);
+            assertFalse(frame.discontinuity);
+            queue.release(frame);
+        }
+        producer.join();
+        assertEquals(0, drops[0]);
+        assertTrue(queue.getHighWaterMark() <= queue.capacity());
+    }
+
+    @Test
+    public void drop_marksNextFrame() {
+        FrameQueue queue = new FrameQueue(2, 1);
+        int acquired = 0;
+        while (queue.acquire() != null)
+            ++acquired;
+        assertEquals(2, acquired);
+        queue.drop();
+        assertEquals(1, queue.getDropCount());
+
+        queue = new FrameQueue(2, 1);
+        FrameQueue.Frame frame = queue.acquire();
+        queue.drop();
+        queue.offer(frame);
+        assertTrue(queue.poll().discontinuity);
+        assertNull(queue.poll());
+    }
+}
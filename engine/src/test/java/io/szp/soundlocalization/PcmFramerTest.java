@@ -0,0 +1,38 @@
+package io.szp.soundlocalization;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+
+import static org.junit.Assert.*;
+
+public class PcmFramerTest {
+    @Test
+    public void write_splitsReadsIntoFrames() {
+        ShortBuffer samples = ByteBuffer.allocateDirect(2 * 7).order(ByteOrder.nativeOrder())
+                .asShortBuffer();
+        final int[] frames = new int[1];
+        final float[] next = new float[1];
+        PcmFramer framer = new PcmFramer(5);
+        PcmFramer.FrameHandler handler = new PcmFramer.FrameHandler() {
+            @Override
+            public float[] frame(float[] frame) {
+                for (float sample: frame) {
+                    assertEquals(next[0], sample * 32768, 0);
+                    ++next[0];
+                }
+                ++frames[0];
+                return frame;
+            }
+        };
+        short value = 0;
+        for (int read = 0; read < 5; ++read) {
+            for (int i = 0; i < 7; ++i)
+                samples.put(i, value++);
+            framer.write(samples, 0, 7, handler);
+        }
+        assertEquals(7, frames[0]);
+    }
+}
@@ -0,0 +1,28 @@
+package io.szp.soundlocalization;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class PcmLoopTest {
+    @Test
+    public void partialWrites_streamContinuousPeriods() {
+        float[] symbol = new float[] { 0, 0.25f, -0.5f, 1, -1 };
+        PcmLoop loop = new PcmLoop(symbol, 0.5f, 12);
+        ByteBuffer buffer = loop.getBuffer();
+        assertTrue(buffer.remaining() / 2 >= 12 + symbol.length);
+        int sample = 0;
+        int[] writes = new int[] { 3, 11, 1, 14, 7, 9 };
+        for (int write: writes) {
+            // A blocking write of part of what is offered, as a track may do
+            for (int i = 0; i < write; ++i, ++sample) {
+                float expected = symbol[sample % symbol.length] * 0.5f * 32768;
+                assertEquals(expected, buffer.getShort(), 0.5f);
+            }
+            loop.wrap();
+            assertTrue(buffer.remaining() / 2 >= 12);
+        }
+    }
+}
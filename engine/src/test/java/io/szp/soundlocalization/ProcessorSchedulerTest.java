@@ -0,0 +1,111 @@
+package io.szp.soundlocalization;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ProcessorSchedulerTest {
+    private static class RecordingHandler implements ReceiverProcessorHandler {
+        final List<Float> results = new ArrayList<>();
+        final List<Thread> threads = new ArrayList<>();
+
+        @Override
+        public int handle(float result, int length) {
+            results.add(result);
+            threads.add(Thread.currentThread());
+            return 65;
+        }
+
+        @Override
+        public void started(int receiverIndex, float intensity, float indexStd) {
+        }
+
+        @Override
+        public void stopped(int receiverIndex, float intensity, float indexStd) {
+        }
+
+        @Override
+        public void window(float[] prevWindow, float[] curWindow) {
+        }
+    }
+
+    private static ReceiverProcessor[] processors(float[] symbol, RecordingHandler[] handlers) {
+        ReceiverProcessor[] processors = new ReceiverProcessor[handlers.length];
+        for (int i = 0; i < handlers.length; ++i) {
+            handlers[i] = new RecordingHandler();
+            processors[i] = new ReceiverProcessor(i + 1, ReceiverProcessorTest.parameter(), symbol,
+                    new MatchedFilter(symbol, symbol.length), handlers[i]);
+        }
+        return processors;
+    }
+
+    @Test
+    public void process_matchesSequential() {
+        int count = 5;
+        float[] symbol = ReceiverProcessorTest.symbol();
+        RecordingHandler[] expected = new RecordingHandler[count];
+        RecordingHandler[] actual = new RecordingHandler[count];
+        ReceiverProcessor[] sequential = processors(symbol, expected);
+        ProcessorScheduler scheduler = new ProcessorScheduler(processors(symbol, actual), 3);
+        assertEquals(3, scheduler.getThreads());
+        Random random = new Random(0);
+        for (int i = 0; i < 40; ++i) {
+            float[] window = ReceiverProcessorTest.window(symbol, random);
+            for (ReceiverProcessor processor: sequential)
+                processor.processWindow(window);
+            scheduler.process(window);
+        }
+        scheduler.shutdown();
+        for (int i = 0; i < count; ++i) {
+            assertFalse(expected[i].results.isEmpty());
+            assertEquals(expected[i].results, actual[i].results);
+            // Each processor stays on a single thread
+            for (Thread thread: actual[i].threads)
+                assertSame(actual[i].threads.get(0), thread);
+        }
+    }
+
+    @Test
+    public void process_tracksWithSharedCorrelator() {
+        int count = 2;
+        float[] symbol = ReceiverProcessorTest.symbol();
+        RecordingHandler[] expected = new RecordingHandler[count];
+        RecordingHandler[] actual = new RecordingHandler[count];
+        ReceiverProcessor[] sequential = processors(symbol, expected);
+        ReceiverProcessor[] shared = processors(symbol, actual);
+        MatchedFilter filter = new MatchedFilter(symbol, symbol.length);
+        ProcessorScheduler scheduler = new ProcessorScheduler(shared,
+                new StreamingCorrelator(new MatchedFilter[] { filter, filter }), 1);
+        Random random = new Random(4);
+        // Lock and track, lose the chirp, then lock on it again
+        for (int i = 0; i < 80; ++i) {
+            float[] window;
+            if (i < 30 || i >= 50) {
+                window = ReceiverProcessorTest.window(symbol, random);
+            } else {
+                window = new float[symbol.length];
+                for (int j = 0; j < symbol.length; ++j)
+                    window[j] = 0.05f * (random.nextFloat() - 0.5f);
+            }
+            for (ReceiverProcessor processor: sequential)
+                processor.processWindow(window);
+            scheduler.process(window);
+            for (int j = 0; j < count; ++j)
+                assertEquals(sequential[j].isTracking(), shared[j].isTracking());
+            if (i == 29 || i == 79)
+                assertTrue(shared[0].isTracking());
+            if (i == 49)
+                assertFalse(shared[0].isStarted());
+        }
+        scheduler.shutdown();
+        for (int i = 0; i < count; ++i) {
+            assertEquals(expected[i].results.size(), actual[i].results.size());
+            for (int j = 0; j < expected[i].results.size(); ++j)
+                assertEquals(expected[i].results.get(j), actual[i].results.get(j), 1e-3f);
+        }
+    }
+}
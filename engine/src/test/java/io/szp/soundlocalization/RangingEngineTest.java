@@ -0,0 +1,107 @@
+package io.szp.soundlocalization;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RangingEngineTest {
+    private static final int FRAMES = 60;
+    private static final int CHUNK = 1000;
+
+    private static class RecordingListener implements RangingListener {
+        private final List<Float> ranges1 = new ArrayList<>();
+        private final List<Float> ranges2 = new ArrayList<>();
+        private int positions;
+        private int started;
+
+        @Override
+        public synchronized void range(int receiverIndex, float position) {
+            (receiverIndex == 1 ? ranges1 : ranges2).add(position);
+        }
+
+        @Override
+        public synchronized void position(float x, float y) {
+            ++positions;
+        }
+
+        @Override
+        public synchronized void started(int receiverIndex, float intensity, float indexStd) {
+            ++started;
+        }
+
+        @Override
+        public void stopped(int receiverIndex, float intensity, float indexStd) {
+        }
+
+        @Override
+        public void gate(boolean open, float score, long gatedCount, long checkedCount) {
+        }
+
+        @Override
+        public void window(float[] prevWindow, float[] curWindow) {
+        }
+    }
+
+    // Periodic chirps of both senders with different delays and a little noise
+    private static short[] pcm(RangingConfig config, Random random) {
+        float[] symbol1 = config.symbol(1), symbol2 = config.symbol(2);
+        int length = symbol1.length;
+        short[] pcm = new short[FRAMES * length];
+        for (int i = 0; i < pcm.length; ++i) {
+            float value = 0.3f * symbol1[(i + length - 300) % length] +
+                    0.01f * (random.nextFloat() - 0.5f);
+            if (config.twoDimensionEnabled)
+                value += 0.3f * symbol2[(i + length - 500) % length];
+            pcm[i] = (short) Math.round(value * 32767);
+        }
+        return pcm;
+    }
+
+    private static RecordingListener run(RangingConfig config) {
+        RecordingListener listener = new RecordingListener();
+        RangingEngine engine = new RangingEngine(config, listener);
+        assertEquals(config.symbolLength(), engine.getFrameLength());
+        short[] pcm = pcm(config, new Random(7));
+        for (int offset = 0; offset < pcm.length; offset += CHUNK)
+            engine.writePcm(pcm, offset, Math.min(CHUNK, pcm.length - offset));
+        engine.shutdown();
+        return listener;
+    }
+
+    private static void assertSteady(List<Float> ranges) {
+        assertTrue(ranges.size() > FRAMES / 2);
+        float last = ranges.get(ranges.size() - 1);
+        for (int i = ranges.size() - 10; i < ranges.size(); ++i)
+            assertEquals(last, ranges.get(i), 0.01f);
+    }
+
+    @Test
+    public void writePcm_reportsSteadyRanges() {
+        for (boolean baseband: new boolean[] { false, true }) {
+            RangingConfig config = new RangingConfig();
+            config.basebandEnabled = baseband;
+            config.threads = 1;
+            RecordingListener listener = run(config);
+            assertEquals(1, listener.started);
+            assertSteady(listener.ranges1);
+            assertTrue(listener.ranges2.isEmpty());
+            assertEquals(0, listener.positions);
+        }
+    }
+
+    @Test
+    public void writePcm_reportsPositionsForTwoSenders() {
+        RangingConfig config = new RangingConfig();
+        config.twoDimensionEnabled = true;
+        config.threads = 2;
+        RecordingListener listener = run(config);
+        assertEquals(2, listener.started);
+        assertSteady(listener.ranges1);
+        assertSteady(listener.ranges2);
+        assertTrue(listener.positions > FRAMES / 4);
+    }
+}
@@ -0,0 +1,195 @@
+package io.szp.soundlocalization;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ReceiverProcessorTest {
+    static final int SAMPLING_RATE = 44100;
+    private static final int SYMBOL_LENGTH = 1764;
+    static final int DELAY = 300;
+
+    private static class CountingHandler implements ReceiverProcessorHandler {
+        int results, starts, stops;
+        float lastResult;
+
+        @Override
+        public int handle(float result, int length) {
+            ++results;
+            lastResult = result;
+            return 65;
+        }
+
+        @Override
+        public void started(int receiverIndex, float intensity, float indexStd) {
+            ++starts;
+        }
+
+        @Override
+        public void stopped(int receiverIndex, float intensity, float indexStd) {
+            ++stops;
+        }
+
+        @Override
+        public void window(float[] prevWindow, float[] curWindow) {
+        }
+    }
+
+    static ReceiverParameter parameter() {
+        ReceiverParameter parameter = new ReceiverParameter();
+        parameter.symbolLength = SYMBOL_LENGTH;
+        parameter.bufferLength = 6;
+        parameter.fftLength = 8192;
+        parameter.searchFraction = 0.1f;
+        parameter.startIntensityThreshold = 6;
+        parameter.startIndexStdLimit = 50;
+        parameter.endIntensityThreshold = 6;
+        parameter.endIndexStdLimit = 200;
+        parameter.trackingEnabled = true;
+        parameter.trackingHalfWidth = 8;
+        parameter.trackingRatio = 0.5f;
+        parameter.acquisitionDecimation = 1;
+        return parameter;
+    }
+
+    static float[] symbol() {
+        float[] time = new float[SYMBOL_LENGTH];
+        for (int i = 0; i < SYMBOL_LENGTH; ++i)
+            time[i] = (float) i / SAMPLING_RATE;
+        return SignalProcessing.chirp(4000, 8000, time);
+    }
+
+    // Periodic chirp delayed by DELAY samples with a little noise on top
+    static float[] window(float[] symbol, Random random) {
+        float[] window = new float[SYMBOL_LENGTH];
+        for (int i = 0; i < SYMBOL_LENGTH; ++i)
+            window[i] = 0.5f * symbol[(i - DELAY + SYMBOL_LENGTH) % SYMBOL_LENGTH] +
+                    0.05f * (random.nextFloat() - 0.5f);
+        return window;
+    }
+
+    @Test
+    public void processWindow_locksOnPeriodicChirp() {
+        float[] symbol = symbol();
+        CountingHandler handler = new CountingHandler();
+        ReceiverProcessor processor = new ReceiverProcessor(1, parameter(), symbol,
+                new MatchedFilter(symbol, SYMBOL_LENGTH), handler);
+        Random random = new Random(0);
+        for (int i = 0; i < 20; ++i)
+            processor.processWindow(window(symbol, random));
+        assertTrue(processor.isStarted());
+        assertEquals(1, handler.starts);
+        assertEquals(0, handler.stops);
+        assertTrue(handler.results > 0);
+    }
+
+    @Test
+    public void processWindow_tracksLockAndFallsBack() {
+        float[] symbol = symbol();
+        ReceiverParameter fullParameter = parameter();
+        fullParameter.trackingEnabled = false;
+        CountingHandler trackingHandler = new CountingHandler(), fullHandler = new CountingHandler();
+        ReceiverProcessor tracking = new ReceiverProcessor(1, parameter(), symbol,
+                new MatchedFilter(symbol, SYMBOL_LENGTH), trackingHandler);
+        ReceiverProcessor full = new ReceiverProcessor(1, fullParameter, symbol,
+                new MatchedFilter(symbol, SYMBOL_LENGTH), fullHandler);
+        Random random = new Random(2);
+        for (int i = 0; i < 30; ++i) {
+            float[] window = window(symbol, random);
+            tracking.processWindow(window);
+            full.processWindow(window);
+            assertEquals(full.isStarted(), tracking.isStarted());
+            assertEquals(fullHandler.results, trackingHandler.results);
+            assertEquals(fullHandler.lastResult, trackingHandler.lastResult, 1e-3f);
+        }
+        assertTrue(tracking.isTracking());
+        assertFalse(full.isTracking());
+
+        // Without the chirp the local peak is lost and full acquisition stops the lock
+        for (int i = 0; i < 20; ++i) {
+            float[] window = new float[SYMBOL_LENGTH];
+            for (int j = 0; j < SYMBOL_LENGTH; ++j)
+                window[j] = 0.05f * (random.nextFloat() - 0.5f);
+            tracking.processWindow(window);
+        }
+        assertFalse(tracking.isTracking());
+        assertFalse(tracking.isStarted());
+        assertEquals(1, trackingHandler.stops);
+    }
+
+    @Test
+    public void processWindow_locksWithCoarseAcquisition() {
+        float[] symbol = symbol();
+        ReceiverParameter coarseParameter = parameter();
+        coarseParameter.trackingEnabled = false;
+        coarseParameter.acquisitionDecimation = 8;
+        CountingHandler handler = new CountingHandler(), fullHandler = new CountingHandler();
+        ReceiverProcessor coarse = new ReceiverProcessor(1, coarseParameter, symbol,
+                new MatchedFilter(symbol, SYMBOL_LENGTH), handler);
+        ReceiverParameter fullParameter = parameter();
+        fullParameter.trackingEnabled = false;
+        ReceiverProcessor full = new ReceiverProcessor(1, fullParameter, symbol,
+                new MatchedFilter(symbol, SYMBOL_LENGTH), fullHandler);
+        Random random = new Random(3);
+        for (int i = 0; i < 20; ++i) {
+            float[] window = window(symbol, random);
+            coarse.processWindow(window);
+            full.processWindow(window);
+        }
+        assertTrue(coarse.isStarted());
+        assertEquals(1, handler.starts);
+        assertEquals(fullHandler.results, handler.results);
+        assertEquals(fullHandler.lastResult, handler.lastResult, 1e-3f);
+    }
+
+    @Test
+    public void processWindow_doesNotAllocate() {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadBean;
+        Assume.assumeTrue(bean.isThreadAllocatedMemorySupported());
+        bean.setThreadAllocatedMemoryEnabled(true);
+
+        float[] symbol = symbol();
+        Random random = new Random(1);
+        float[][] windows = new float[64][];
+        for (int i = 0; i < windows.length; ++i)
+            windows[i] = window(symbol, random);
+        // Full acquisition, tracking and coarse acquisition
+        for (int path = 0; path < 3; ++path) {
+            boolean trackingEnabled = path == 1;
+            ReceiverParameter parameter = parameter();
+            parameter.trackingEnabled = trackingEnabled;
+            parameter.acquisitionDecimation = path == 2 ? 8 : 1;
+            CountingHandler handler = new CountingHandler();
+            ReceiverProcessor processor = new ReceiverProcessor(1, parameter, symbol,
+                    new MatchedFilter(symbol, SYMBOL_LENGTH), handler);
+
+            // Warm up: lock, fill the plan caches and scratch space, let the JIT settle
+            for (int round = 0; round < 4; ++round) {
+                for (int i = 0; i < windows.length; ++i)
+                    processor.processWindow(windows[i]);
+            }
+            assertTrue(processor.isStarted());
+            assertEquals(trackingEnabled, processor.isTracking());
+
+            // A pass may still see a deoptimisation materialise objects while the compiler
+            // catches up, so the steady state is given a few passes to show
+            long threadId = Thread.currentThread().getId();
+            int results = handler.results;
+            long allocated = -1;
+            for (int pass = 0; pass < 5 && allocated != 0; ++pass) {
+                long before = bean.getThreadAllocatedBytes(threadId);
+                for (int i = 0; i < windows.length; ++i)
+                    processor.processWindow(windows[i]);
+                allocated = bean.getThreadAllocatedBytes(threadId) - before;
+            }
+            assertTrue(handler.results > results);
+            assertEquals(0, allocated);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package io.szp.soundlocalization;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ReplayRunnerTest {
+    private static final int FRAMES = 50;
+    private static final int DELAY = 300;
+
+    // Periodic chirps of the first sender in channel 0, noise in the others
+    static short[] pcm(RangingConfig config, int channels) {
+        float[] symbol = config.symbol(1);
+        int length = symbol.length;
+        Random random = new Random(3), other = new Random(5);
+        short[] pcm = new short[FRAMES * length * channels];
+        for (int i = 0; i < FRAMES * length; ++i) {
+            float value = 0.3f * symbol[(i + length - DELAY) % length] +
+                    0.01f * (random.nextFloat() - 0.5f);
+            pcm[i * channels] = (short) Math.round(value * 32767);
+            for (int j = 1; j < channels; ++j)
+                pcm[i * channels + j] = (short) (other.nextInt(20000) - 10000);
+        }
+        return pcm;
+    }
+
+    static File write(short[] pcm, int channels, int sampleRate, boolean wav)
+            throws IOException {
+        File file = File.createTempFile("replay", wav ? ".wav" : ".pcm");
+        file.deleteOnExit();
+        ByteBuffer buffer = ByteBuffer.allocate(44 + 2 * pcm.length)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        if (wav) {
+            buffer.put("RIFF".getBytes("US-ASCII")).putInt(36 + 2 * pcm.length)
+                    .put("WAVE".getBytes("US-ASCII"));
+            buffer.put("fmt ".getBytes("US-ASCII")).putInt(16).putShort((short) 1)
+                    .putShort((short) channels).putInt(sampleRate)
+                    .putInt(sampleRate * channels * 2).putShort((short) (channels * 2))
+                    .putShort((short) 16);
+            buffer.put("data".getBytes("US-ASCII")).putInt(2 * pcm.length);
+        }
+        for (short sample: pcm)
+            buffer.putShort(sample);
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(buffer.array(), 0, buffer.position());
+        }
+        return file;
+    }
+
+    private static String replay(RangingConfig config, PcmFile input, int expectedFrames)
+            throws IOException {
+        StringWriter output = new StringWriter();
+        try {
+            ReplayRunner.Report report = ReplayRunner.replay(config, input, output);
+            assertEquals(expectedFrames, report.frames);
+            assertEquals(1, report.starts);
+            assertTrue(report.ranges > FRAMES / 2);
+            assertTrue(report.realTimeFactor() > 0);
+        } finally {
+            input.close();
+        }
+        return output.toString();
+    }
+
+    @Test
+    public void replay_wavAndRawGiveSameEvents() throws IOException {
+        RangingConfig config = new RangingConfig();
+        config.threads = 1;
+        int length = config.symbolLength();
+        File wav = write(pcm(config, 2), 2, config.samplingRate, true);
+        File raw = write(pcm(config, 1), 1, config.samplingRate, false);
+        // Maps that split frames, to cover the framer carrying samples across them
+        String fromWav = replay(config, PcmFile.openWav(wav, 3000), FRAMES);
+        String fromRaw = replay(config, PcmFile.openRaw(raw, config.samplingRate, 1000), FRAMES);
+        assertEquals(fromRaw, fromWav);
+        String[] lines = fromWav.split("\n");
+        String[] last = lines[lines.length - 1].split("\t");
+        assertEquals("range", last[1]);
+        assertEquals(FRAMES * length / (double) config.samplingRate,
+                Double.parseDouble(last[0]), 1e-3);
+    }
+
+    @Test
+    public void replay_usesRecordingRate() throws IOException {
+        RangingConfig config = new RangingConfig();
+        config.samplingRate = 22050;
+        config.threads = 1;
+        File raw = write(pcm(config, 1), 1, config.samplingRate, false);
+        RangingConfig replayed = new RangingConfig();
+        replayed.threads = 1;
+        replay(replayed, PcmFile.openRaw(raw, 22050), FRAMES);
+        assertEquals(44100, replayed.samplingRate);
+    }
+
+    @Test
+    public void openWav_rejectsOtherFiles() throws IOException {
+        File raw = write(new short[100], 1, 44100, false);
+        try {
+            PcmFile.openWav(raw).close();
+            fail("Expected an invalid WAV file");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+}
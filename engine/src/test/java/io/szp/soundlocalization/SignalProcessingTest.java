@@ -0,0 +1,261 @@
+package io.szp.soundlocalization;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SignalProcessingTest {
+    private static float[] random(Random random, int n) {
+        float[] data = new float[n];
+        for (int i = 0; i < n; ++i)
+            data[i] = random.nextFloat() - 0.5f;
+        return data;
+    }
+
+    private static float[] directXcorr(float[] x, float[] y) {
+        int m = Math.max(x.length, y.length), mxl = m - 1;
+        float[] cor = new float[2 * mxl + 1];
+        for (int lag = -mxl; lag <= mxl; ++lag) {
+            double sum = 0;
+            for (int i = 0; i < y.length; ++i) {
+                int j = i + lag;
+                if (j >= 0 && j < x.length)
+                    sum += x[j] * y[i];
+            }
+            cor[lag + mxl] = (float) sum;
+        }
+        return cor;
+    }
+
+    @Test
+    public void xcorr_matchesDirect() {
+        Random random = new Random(0);
+        float[] x = random(random, 200), y = random(random, 100);
+        assertArrayEquals(directXcorr(x, y), SignalProcessing.xcorr(x, y), 1e-3f);
+    }
+
+    @Test
+    public void matchedFilter_matchesXcorr() {
+        Random random = new Random(1);
+        float[] symbol = random(random, 441), window = random(random, 882);
+        float[] cor = SignalProcessing.xcorr(window, symbol);
+        float[] expected = new float[symbol.length];
+        System.arraycopy(cor, cor.length / 2, expected, 0, expected.length);
+        float[] actual = new float[symbol.length];
+        new MatchedFilter(symbol, window.length).correlate(window, actual);
+        assertArrayEquals(expected, actual, 1e-3f);
+    }
+
+    @Test
+    public void streamingCorrelator_matchesXcorr() {
+        Random random = new Random(2);
+        int length = 441;
+        float[] symbol = random(random, length);
+        StreamingCorrelator correlator = new StreamingCorrelator(
+                new MatchedFilter(symbol, length));
+        float[] prevBlock = null, output = new float[length];
+        for (int i = 0; i < 4; ++i) {
+            float[] block = random(random, length);
+            assertEquals(prevBlock != null, correlator.process(block, output));
+            if (prevBlock != null) {
+                float[] window = new float[length * 2];
+                System.arraycopy(prevBlock, 0, window, 0, length);
+                System.arraycopy(block, 0, window, length, length);
+                float[] cor = SignalProcessing.xcorr(window, symbol);
+                float[] expected = new float[length];
+                System.arraycopy(cor, cor.length / 2, expected, 0, length);
+                assertArrayEquals(expected, output, 1e-3f);
+            }
+            prevBlock = block;
+        }
+    }
+
+    @Test
+    public void streamingCorrelator_sharesInputAcrossFilters() {
+        Random random = new Random(3);
+        int length = 441;
+        MatchedFilter[] filters = new MatchedFilter[3];
+        StreamingCorrelator[] singles = new StreamingCorrelator[filters.length];
+        for (int i = 0; i < filters.length; ++i) {
+            filters[i] = new MatchedFilter(random(random, length), length);
+            singles[i] = new StreamingCorrelator(filters[i]);
+        }
+        StreamingCorrelator shared = new StreamingCorrelator(filters);
+        float[][] outputs = new float[filters.length][length];
+        float[] expected = new float[length];
+        for (int i = 0; i < 3; ++i) {
+            float[] block = random(random, length);
+            boolean ready = shared.process(block, outputs);
+            for (int j = 0; j < filters.length; ++j) {
+                assertEquals(ready, singles[j].process(block, expected));
+                if (ready)
+                    assertArrayEquals(expected, outputs[j], 1e-4f);
+            }
+        }
+    }
+
+    @Test
+    public void coarseCorrelator_findsPeak() {
+        float[] symbol = ReceiverProcessorTest.symbol();
+        int length = symbol.length;
+        CoarseCorrelator coarse = new CoarseCorrelator(symbol, 8);
+        // 1764 = 2^2 * 3^2 * 7^2, so 8 is not usable
+        assertEquals(7, coarse.getDecimation());
+        StreamingCorrelator full = new StreamingCorrelator(new MatchedFilter(symbol, length));
+        float[] cor = new float[length];
+        Random random = new Random(4);
+        for (int i = 0; i < 4; ++i) {
+            float[] block = ReceiverProcessorTest.window(symbol, random);
+            boolean ready = full.process(block, cor);
+            assertEquals(ready, coarse.process(block));
+            if (ready) {
+                int index = MathUtils.argmax(cor);
+                float intensity = cor[index] / MathUtils.meanAbs(cor);
+                assertEquals(index, coarse.getIndex(), coarse.getDecimation());
+                assertEquals(intensity, coarse.getIntensity(), 0.25f * intensity);
+            }
+        }
+    }
+
+    @Test
+    public void basebandFrontEnd_keepsChirpAtLowRate() {
+        float[] symbol = ReceiverProcessorTest.symbol();
+        float rate = ReceiverProcessorTest.SAMPLING_RATE;
+        BasebandFrontEnd frontEnd = new BasebandFrontEnd(rate, 4000, 8000, 8, symbol.length);
+        // 4 kHz wide needs 10 kHz real, 1764 is not a multiple of 8, 7 or 5
+        assertEquals(4, frontEnd.getDecimation());
+        int length = frontEnd.getOutputLength();
+        float[] time = new float[length];
+        for (int i = 0; i < length; ++i)
+            time[i] = i / frontEnd.getOutputRate();
+        float[] reference = SignalProcessing.chirp(frontEnd.mapFrequency(4000),
+                frontEnd.mapFrequency(8000), time);
+        StreamingCorrelator correlator = new StreamingCorrelator(
+                new MatchedFilter(reference, length));
+        float[] window = new float[length];
+        float[] cor = new float[length];
+        Random random = new Random(5);
+        double referenceEnergy = 0;
+        for (float value: reference)
+            referenceEnergy += value * value;
+        for (int i = 0; i < 4; ++i) {
+            frontEnd.process(ReceiverProcessorTest.window(symbol, random), window);
+            if (correlator.process(window, cor) && i >= 2) {
+                int index = MathUtils.argmax(cor);
+                // Delayed further by half the filter
+                float expected = ReceiverProcessorTest.DELAY / frontEnd.getDecimation() +
+                        frontEnd.getDelay();
+                assertEquals(expected, index, 1.5f);
+                double energy = 0;
+                for (float value: window)
+                    energy += value * value;
+                // The band sits at about 4 samples per cycle, so a neighbouring lag is in
+                // quadrature with the best one and together they give the envelope
+                float neighbour = Math.max(Math.abs(cor[index - 1]), Math.abs(cor[index + 1]));
+                double envelope = Math.sqrt(cor[index] * cor[index] + neighbour * neighbour);
+                assertTrue(envelope / Math.sqrt(energy * referenceEnergy) > 0.85);
+            }
+        }
+    }
+
+    @Test
+    public void basebandFrontEnd_rejectsSoundOutsideBand() {
+        float rate = ReceiverProcessorTest.SAMPLING_RATE;
+        int length = 1764;
+        // Below and above the 4-8 kHz band, including where the real output would fold them in
+        float[] frequencies = new float[] { 6000, 500, 2000, 2500, 9500, 10000, 12000 };
+        float[] power = new float[frequencies.length];
+        for (int f = 0; f < frequencies.length; ++f) {
+            BasebandFrontEnd frontEnd = new BasebandFrontEnd(rate, 4000, 8000, 8, length);
+            float[] input = new float[length], output = new float[frontEnd.getOutputLength()];
+            for (int block = 0; block < 3; ++block) {
+                for (int i = 0; i < length; ++i)
+                    input[i] = (float) (0.5 * Math.sin(2 * Math.PI * frequencies[f] / rate *
+                            (block * length + i)));
+                frontEnd.process(input, output);
+            }
+            for (float value: output)
+                power[f] += value * value;
+        }
+        for (int f = 1; f < frequencies.length; ++f)
+            assertTrue("f = " + frequencies[f], power[f] < 1e-4f * power[0]);
+    }
+
+    // Consecutive frames of white noise with the given RMS, an optional periodic chirp and an
+    // optional 1 kHz tone, returning whether the gate let the last frame through
+    private static boolean gate(EnergyGate gate, float[] chirp, float chirpAmplitude,
+                                float noise, float tone, int frames, Random random) {
+        float rate = ReceiverProcessorTest.SAMPLING_RATE;
+        int length = chirp.length;
+        boolean open = false;
+        for (int frame = 0; frame < frames; ++frame) {
+            float[] block = new float[length];
+            for (int i = 0; i < length; ++i) {
+                int index = frame * length + i;
+                block[i] = chirpAmplitude * chirp[(i - ReceiverProcessorTest.DELAY + length) %
+                        length] + noise * (float) random.nextGaussian() +
+                        tone * (float) Math.sin(2 * Math.PI * 1000 / rate * index);
+            }
+            open = gate.process(block);
+        }
+        return open;
+    }
+
+    @Test
+    public void energyGate_dropsFramesWithoutChirp() {
+        float[] symbol = ReceiverProcessorTest.symbol();
+        float[] falling = new float[symbol.length];
+        for (int i = 0; i < symbol.length; ++i)
+            falling[i] = symbol[symbol.length - 1 - i];
+        float rate = ReceiverProcessorTest.SAMPLING_RATE;
+        int length = symbol.length;
+        Random random = new Random(6);
+        // -60 dBFS noise, about 0.18 of which falls in the band
+        float noise = 1e-3f;
+        float inBand = 2 * 4000 / rate * noise * noise;
+        // Chirps 10 dB under the noise in the band, sweeping either way
+        float weak = (float) Math.sqrt(2 * inBand * 0.1f);
+        for (float[] chirp: new float[][] { symbol, falling }) {
+            EnergyGate gate = new EnergyGate(4000 / rate, 8000 / rate, length);
+            assertTrue(gate(gate, chirp, weak, noise, 0, 60, random));
+            assertTrue(gate.getScore() > 1.4f);
+            assertEquals(0, gate.getGatedCount());
+        }
+        // Noise alone, noise under a loud tone outside the band, and silence
+        float[] tones = new float[] { 0, 0.1f, 0 };
+        float[] noises = new float[] { noise, noise, 0 };
+        for (int i = 0; i < tones.length; ++i) {
+            EnergyGate gate = new EnergyGate(4000 / rate, 8000 / rate, length);
+            assertFalse(gate(gate, symbol, 0, noises[i], tones[i], 60, random));
+            assertTrue(gate.getScore() < 1.25f);
+            assertTrue(gate.getGatedCount() > 30);
+        }
+        // A chirp coming up opens the gate again
+        EnergyGate gate = new EnergyGate(4000 / rate, 8000 / rate, length);
+        assertFalse(gate(gate, symbol, 0, noise, 0, 60, random));
+        assertTrue(gate(gate, symbol, 4 * weak, noise, 0, 30, random));
+        assertTrue(gate.getScore() > 1.4f);
+    }
+
+    @Test
+    public void chirp_recurrenceMatchesDirect() {
+        int rate = 44100, length = 10 * rate;
+        float[] chirp = SignalProcessing.chirp(4000, 8000, length, rate, 0.5f);
+        double beta = (8000 - 4000) / ((length - 1) / (double) rate);
+        float error = 0;
+        for (int i = 0; i < length; ++i) {
+            double t = (double) i / rate;
+            double expected = Math.cos(2 * Math.PI * (beta / 2 * t * t + 4000 * t) + 0.5);
+            error = Math.max(error, (float) Math.abs(chirp[i] - expected));
+        }
+        assertTrue(error < 1e-5f);
+        float[] symbol = ReceiverProcessorTest.symbol();
+        float[] fast = SignalProcessing.chirp(4000, 8000, symbol.length, rate, 0);
+        for (int i = 0; i < symbol.length; ++i)
+            assertEquals(symbol[i], fast[i], 1e-3f);
+        assertSame(SignalProcessing.cachedChirp(4000, 8000, 1764, rate, 0),
+                SignalProcessing.cachedChirp(4000, 8000, 1764, rate, 0));
+    }
+}
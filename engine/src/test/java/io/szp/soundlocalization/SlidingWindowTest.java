@@ -0,0 +1,44 @@
+package io.szp.soundlocalization;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SlidingWindowTest {
+    @Test
+    public void statistics_matchLastValues() {
+        Random random = new Random(0);
+        int capacity = 6;
+        SlidingWindow window = new SlidingWindow(capacity);
+        float[] history = new float[10000];
+        for (int i = 0; i < history.length; ++i) {
+            history[i] = random.nextInt(1764);
+            window.add(history[i]);
+            int size = Math.min(i + 1, capacity);
+            assertEquals(size, window.size());
+            float[] last = new float[size];
+            System.arraycopy(history, i + 1 - size, last, 0, size);
+            float mean = MathUtils.mean(last);
+            float sum = 0;
+            for (float value: last)
+                sum += (value - mean) * (value - mean);
+            assertEquals(mean, window.mean(), 1e-2f);
+            assertEquals((float) Math.sqrt(sum / size), window.std(), 1e-2f);
+        }
+        assertTrue(window.isFull());
+    }
+
+    @Test
+    public void clear_resetsStatistics() {
+        SlidingWindow window = new SlidingWindow(3);
+        window.add(1);
+        window.add(5);
+        window.clear();
+        window.add(2);
+        assertEquals(1, window.size());
+        assertEquals(2, window.mean(), 0);
+        assertEquals(0, window.std(), 0);
+    }
+}
@@ -0,0 +1,110 @@
+package io.szp.soundlocalization;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SweepRunnerTest {
+    @Test
+    public void sweep_matchesSeparateReplays() throws IOException {
+        RangingConfig base = new RangingConfig();
+        File raw = ReplayRunnerTest.write(ReplayRunnerTest.pcm(base, 1), 1, base.samplingRate,
+                false);
+        Map<String, List<String>> axes = new LinkedHashMap<>();
+        axes.put("basebandEnabled", Arrays.asList("false", "true"));
+        axes.put("acquisitionDecimation", Arrays.asList("1", "4"));
+        axes.put("startIntensityThreshold", Arrays.asList("6", "1000"));
+        axes.put("bufferLength", Arrays.asList("4", "6"));
+        SweepRunner.SweepReport report;
+        try (PcmFile input = PcmFile.openRaw(raw, base.samplingRate)) {
+            report = SweepRunner.sweep(base, axes, input, 2);
+        }
+        assertEquals(16, report.results.size());
+        assertEquals(2, report.groups);
+        for (int i = 0; i < report.results.size(); ++i) {
+            SweepRunner.Result result = report.results.get(i);
+            assertEquals(i + 1, result.rank);
+            boolean locks = result.config.startIntensityThreshold < 1000;
+            assertEquals(locks, i < 8);
+            assertTrue(result.cost > 0);
+            if (!locks) {
+                assertEquals(0, result.ranges);
+                continue;
+            }
+            assertTrue(result.coverage > 0.5);
+            assertTrue(result.jitter < 0.01);
+            // Sharing the work leaves every configuration's results as they are on their own
+            RangingConfig config = result.config.copy();
+            config.threads = 1;
+            try (PcmFile input = PcmFile.openRaw(raw, base.samplingRate)) {
+                ReplayRunner.Report alone = ReplayRunner.replay(config, input, null);
+                assertEquals(alone.starts, result.starts);
+                assertEquals(alone.ranges, result.ranges);
+                assertEquals(alone.lockTime, result.lockTime, 1e-6);
+            }
+        }
+        StringWriter output = new StringWriter();
+        SweepRunner.write(report, output);
+        assertEquals(17, output.toString().split("\n").length);
+    }
+
+    @Test
+    public void sweep_ranksByReferenceError() throws IOException {
+        RangingConfig base = new RangingConfig();
+        base.threads = 1;
+        File raw = ReplayRunnerTest.write(ReplayRunnerTest.pcm(base, 1), 1, base.samplingRate,
+                false);
+        // The most common range of a plain replay stands in for the true one
+        ReplayRunner.Report replay;
+        try (PcmFile input = PcmFile.openRaw(raw, base.samplingRate)) {
+            replay = ReplayRunner.replay(base, input, null);
+        }
+        int bin = replay.rangeHistogram.firstKey();
+        for (Map.Entry<Integer, Long> entry: replay.rangeHistogram.entrySet()) {
+            if (entry.getValue() > replay.rangeHistogram.get(bin))
+                bin = entry.getKey();
+        }
+        float range = (bin + 0.5f) * ReplayRunner.HISTOGRAM_BIN;
+        Map<String, List<String>> axes = new LinkedHashMap<>();
+        axes.put("startIntensityThreshold", Arrays.asList("1000", "6"));
+        axes.put("bufferLength", Arrays.asList("4", "6"));
+        for (float offset: new float[] { 0, 1 }) {
+            SweepRunner.SweepReport report;
+            try (PcmFile input = PcmFile.openRaw(raw, base.samplingRate)) {
+                report = SweepRunner.sweep(base, axes, input, 2, new float[] { range + offset });
+            }
+            for (int i = 0; i < report.results.size(); ++i) {
+                SweepRunner.Result result = report.results.get(i);
+                if (i >= 2) {
+                    assertEquals(0, result.ranges);
+                    assertTrue(Double.isNaN(result.error));
+                    continue;
+                }
+                assertTrue(result.ranges > 0);
+                assertEquals(offset, result.error, ReplayRunner.HISTOGRAM_BIN);
+                if (i > 0)
+                    assertTrue(report.results.get(i - 1).error <= result.error);
+            }
+            StringWriter output = new StringWriter();
+            SweepRunner.write(report, output);
+            assertTrue(output.toString().startsWith("rank\tcoverage\tjitter_m\terror_m\t"));
+        }
+
+        RangingConfig twoDimension = base.copy();
+        twoDimension.twoDimensionEnabled = true;
+        try (PcmFile input = PcmFile.openRaw(raw, base.samplingRate)) {
+            SweepRunner.sweep(twoDimension, axes, input, 2, new float[] { range });
+            fail("Expected a reference range per receiver");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+}